@@ -116,6 +116,26 @@ const fetchChartData = async () => {
     }
   };
 
+  // Uploads are processed in the background; poll the job until it finishes
+  const waitForJob = async (jobId: string, fileName: string) => {
+    // Jobs run one at a time, so allow for a full queue ahead of this one
+    const deadline = Date.now() + 10 * 60 * 1000;
+    while (Date.now() < deadline) {
+      await new Promise((resolve) => setTimeout(resolve, 1000));
+      const res = await fetch(
+        `https://rioseasonalspreads-production.up.railway.app/inventory-jobs/${jobId}`
+      );
+      if (!res.ok) throw new Error(`Lost track of ${fileName}`);
+      const job = await res.json();
+      if (job.state === "SUCCEEDED") return;
+      if (job.state === "FAILED") {
+        const reason = job.error ?? Object.values(job.errors ?? {})[0] ?? "unknown error";
+        throw new Error(`Failed to process ${fileName}: ${reason}`);
+      }
+    }
+    throw new Error(`Timed out waiting for ${fileName} to be processed`);
+  };
+
   const handleUpload = async () => {
     if (files.length === 0) {
       setUploadMessage("Please select PDF files first");
@@ -132,6 +152,8 @@ const fetchChartData = async () => {
           { method: "POST", body: formData }
         );
         if (!response.ok) throw new Error(`Failed to upload ${file.name}`);
+        const { jobId } = await response.json();
+        await waitForJob(jobId, file.name);
       } catch (err) {
         setUploadMessage(err instanceof Error ? err.message : "Upload failed");
         setIsUploading(false);
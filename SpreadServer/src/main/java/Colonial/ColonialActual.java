@@ -1,4 +1,5 @@
 package Colonial;
+import Utilities.Freshness;
 import java.io.*;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -202,5 +203,7 @@ public class ColonialActual {
         writer.println();
       }
     }
+    // Rows are fuel types by cycle, not dated
+    Freshness.record(outputFile, null, ALL_FUEL_TYPES.length);
   }
 }
\ No newline at end of file
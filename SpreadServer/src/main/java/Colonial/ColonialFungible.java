@@ -6,6 +6,7 @@ import com.microsoft.graph.options.QueryOption;
 import com.microsoft.graph.requests.*;
 import com.microsoft.graph.authentication.IAuthenticationProvider;
 import Outlook.FusionCurveParser.SimpleAuthProvider;
+import Utilities.Freshness;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -111,13 +112,13 @@ public class ColonialFungible {
         parseFungibleBody(message.body.content, emailDate, gbjCurrent, lnjCurrent, gbjAdjacent, lnjAdjacent);
 
         // Write all affected files
-        writeCompleteCsv(GBJ_CSV_BASE, currentYear, gbjCurrent);
-        writeCompleteCsv(LNJ_CSV_BASE, currentYear, lnjCurrent);
+        writeCompleteCsv(GBJ_CSV_BASE, currentYear, gbjCurrent, emailDate);
+        writeCompleteCsv(LNJ_CSV_BASE, currentYear, lnjCurrent, emailDate);
 
         if (gbjAdjacent != null) {
           int adjacentYear = emailDate.getMonthValue() >= 11 ? currentYear + 1 : currentYear - 1;
-          writeCompleteCsv(GBJ_CSV_BASE, adjacentYear, gbjAdjacent);
-          writeCompleteCsv(LNJ_CSV_BASE, adjacentYear, lnjAdjacent);
+          writeCompleteCsv(GBJ_CSV_BASE, adjacentYear, gbjAdjacent, emailDate);
+          writeCompleteCsv(LNJ_CSV_BASE, adjacentYear, lnjAdjacent, emailDate);
         }
 
         processedDates.add(formattedDate);
@@ -376,7 +377,7 @@ public class ColonialFungible {
   }
 
   private static void writeCompleteCsv(String basePath, int year,
-      Map<String, Map<String, List<String>>> deliveryData) throws IOException {
+      Map<String, Map<String, List<String>>> deliveryData, LocalDate bulletinDate) throws IOException {
     String csvPath = basePath + year + ".csv";
     Set<String> allCycles = new TreeSet<>();
     for (int i = 1; i <= 72; i++) {
@@ -423,6 +424,7 @@ public class ColonialFungible {
     }
 
     Files.write(path, lines, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+    Freshness.recordAdded(csvPath, bulletinDate, lines.size() - 1);
     System.out.println("Updated " + csvPath + " with " + (fuelTypes.size() + 3) + " fuel types (including aggregates)");
   }
 
@@ -7,6 +7,7 @@ import com.microsoft.graph.options.QueryOption;
 import com.microsoft.graph.requests.*;
 import com.microsoft.graph.authentication.IAuthenticationProvider;
 import Outlook.FusionCurveParser.SimpleAuthProvider;
+import Utilities.Freshness;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import org.jsoup.Jsoup;
@@ -231,6 +232,7 @@ public class ColonialOrigin {
     Files.createDirectories(path.getParent());
     Files.write(path, updatedLines, StandardCharsets.UTF_8,
         StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+    Freshness.recordAdded(csvPath, bulletinDate, updatedLines.size() - 1);
   }
 
   private static boolean isTransitionPeriod(LocalDate date) {
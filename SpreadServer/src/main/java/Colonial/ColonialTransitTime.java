@@ -7,6 +7,7 @@ import com.microsoft.graph.options.QueryOption;
 import com.microsoft.graph.requests.*;
 import com.microsoft.graph.authentication.IAuthenticationProvider;
 import Outlook.FusionCurveParser.SimpleAuthProvider;
+import Utilities.Freshness;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import java.io.IOException;
@@ -390,6 +391,7 @@ public class ColonialTransitTime {
     // Write the file
     System.out.println("  Writing " + lines.size() + " rows to file");
     Files.write(path, lines, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+    Freshness.recordAdded(filePath, date, lines.size() - 1);
     System.out.println("  Successfully updated " + filePath);
 
     // Verification
@@ -7,6 +7,7 @@ import com.microsoft.graph.options.QueryOption;
 import com.microsoft.graph.requests.*;
 import com.microsoft.graph.authentication.IAuthenticationProvider;
 import Outlook.FusionCurveParser.SimpleAuthProvider;
+import Utilities.Freshness;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -106,11 +107,11 @@ public class MinColonialFungible {
         parseFungibleBody(message.body.content, emailDate, gbjCurrent, gbjAdjacent);
 
         // Write all affected files
-        writeCompleteCsv(GBJ_CSV_BASE, currentYear, gbjCurrent);
+        writeCompleteCsv(GBJ_CSV_BASE, currentYear, gbjCurrent, emailDate);
 
         if (gbjAdjacent != null) {
           int adjacentYear = emailDate.getMonthValue() >= 11 ? currentYear + 1 : currentYear - 1;
-          writeCompleteCsv(GBJ_CSV_BASE, adjacentYear, gbjAdjacent);
+          writeCompleteCsv(GBJ_CSV_BASE, adjacentYear, gbjAdjacent, emailDate);
         }
 
         processedDates.add(formattedDate);
@@ -342,7 +343,7 @@ public class MinColonialFungible {
   }
 
   private static void writeCompleteCsv(String basePath, int year,
-      Map<String, Map<String, List<String>>> deliveryData) throws IOException {
+      Map<String, Map<String, List<String>>> deliveryData, LocalDate bulletinDate) throws IOException {
     String csvPath = basePath + year + ".csv";
     Set<String> allCycles = new TreeSet<>();
     for (int i = 1; i <= 72; i++) {
@@ -386,6 +387,7 @@ public class MinColonialFungible {
     }
 
     Files.write(path, lines, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+    Freshness.recordAdded(csvPath, bulletinDate, lines.size() - 1);
     System.out.println("Updated " + csvPath + " with " + fuelTypes.size() + " fuel types");
   }
 
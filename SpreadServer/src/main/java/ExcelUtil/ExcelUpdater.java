@@ -1,51 +1,132 @@
 package ExcelUtil;
 
+import Utilities.Freshness;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.xssf.usermodel.*;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.text.PDFTextStripper;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
 
 public class ExcelUpdater {
     private static final String EXCEL_DIR = "data/new";
     private static final String PDF_DIR = "data/pdfToAdd/";
-    private static final Object FILE_LOCK = new Object();
+    // Held while workbooks are written; InventoryTable reads them under it too
+    static final Object FILE_LOCK = new Object();
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+
+    // Reports are read side by side; each task loads its own PDDocument
+    private static final ExecutorService EXTRACTORS = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), runnable -> {
+                Thread thread = new Thread(runnable, "pdf-extract");
+                thread.setDaemon(true);
+                return thread;
+            });
 
     public static void main(String[] args) throws IOException {
         File pdfDir = new File(PDF_DIR);
         File[] newPdfs = pdfDir.listFiles((dir, name) -> name.toLowerCase().endsWith(".pdf"));
         if (newPdfs != null) {
-            for (File pdf : newPdfs) {
-                processSinglePdf(pdf);
-            }
+            Map<File, String> failures = processPdfs(Arrays.asList(newPdfs));
+            failures.forEach((pdf, error) -> System.err.println("Could not read " + pdf.getName() + ": " + error));
         }
     }
 
     public static void processSinglePdf(File pdfFile) throws IOException {
-        synchronized (FILE_LOCK) {
-            Map<String, String[]> data = PDFToExcel.processPDF(pdfFile);
-            String dateStr = data.get("DATE")[0];
-            LocalDate newDate = LocalDate.parse(dateStr, DateTimeFormatter.ofPattern("MM/dd/yyyy"));
-            System.out.println("Adding data for: " + newDate);
+        Map<File, String> failures = processPdfs(List.of(pdfFile));
+        if (!failures.isEmpty()) {
+            throw new IOException(failures.get(pdfFile));
+        }
+    }
 
-            for (String grade : PDFToExcel.PRODUCT_GRADES) {
-                String[] values = data.get(grade);
-                if (values == null || values.length < 6) {
-                    System.out.println("No data for grade: " + grade);
-                    continue;
-                }
+    /** The rows read from one inventory report. */
+    static final class Report {
+        final String source;
+        final LocalDate date;
+        final Map<String, String[]> data;
+
+        Report(String source, Map<String, String[]> data) {
+            this.source = source;
+            this.date = LocalDate.parse(data.get("DATE")[0], DATE_FORMAT);
+            this.data = data;
+        }
+    }
+
+    /**
+     * Adds any number of inventory reports to the Magellan workbooks. The PDFs are read in parallel,
+     * then merged in AS OF date order with each workbook opened and written once, however many
+     * reports there are. Only the merge holds the workbook lock.
+     *
+     * @return the PDFs that could not be read, with the reason; the others are still merged
+     */
+    public static Map<File, String> processPdfs(List<File> pdfFiles) throws IOException {
+        Map<File, String> failures = new LinkedHashMap<>();
+        mergeReports(extractReports(pdfFiles, failures));
+        return failures;
+    }
+
+    /**
+     * Reads the PDFs in parallel. A PDF that cannot be read is added to failures with the reason.
+     */
+    static List<Report> extractReports(List<File> pdfFiles, Map<File, String> failures) throws IOException {
+        long start = System.currentTimeMillis();
+        List<Future<Report>> extractions = new ArrayList<>();
+        for (File pdfFile : pdfFiles) {
+            extractions.add(EXTRACTORS.submit(() -> new Report(pdfFile.getName(), PDFToExcel.processPDF(pdfFile))));
+        }
+
+        List<Report> reports = new ArrayList<>();
+        for (int i = 0; i < pdfFiles.size(); i++) {
+            try {
+                reports.add(extractions.get(i).get());
+            } catch (ExecutionException e) {
+                failures.put(pdfFiles.get(i), String.valueOf(e.getCause().getMessage()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while reading reports", e);
+            }
+        }
+        System.out.println("Read " + reports.size() + " of " + pdfFiles.size() + " reports in "
+                + (System.currentTimeMillis() - start) + " ms");
+        return reports;
+    }
 
+    /**
+     * Merges already extracted reports into the workbooks, oldest AS OF date first. For each grade
+     * the workbook is indexed by date once; a report whose date is already in the sheet is skipped,
+     * Friday and Saturday rows between the last date and a report's date are filled from the last
+     * Thursday, and rows are kept in date order.
+     */
+    static void mergeReports(List<Report> reports) throws IOException {
+        if (reports.isEmpty()) {
+            return;
+        }
+        List<Report> ordered = new ArrayList<>(reports);
+        ordered.sort(Comparator.comparing(report -> report.date));
+
+        synchronized (FILE_LOCK) {
+            for (String grade : PDFToExcel.PRODUCT_GRADES) {
                 String filePrefix = grade.substring(0, 1);
                 File excelFile = new File(EXCEL_DIR + filePrefix + ".xlsx");
                 System.out.println("Exists: " + excelFile.exists() + ", Last Modified: " + excelFile.lastModified());
 
                 XSSFWorkbook workbook;
-                XSSFSheet sheet;
-
                 if (excelFile.exists()) {
                     try (FileInputStream fis = new FileInputStream(excelFile)) {
                         workbook = new XSSFWorkbook(fis);
@@ -55,143 +136,149 @@ public class ExcelUpdater {
                     workbook.createSheet("Sheet1");
                 }
 
-                sheet = workbook.getNumberOfSheets() > 0 ? workbook.getSheetAt(0) : workbook.createSheet("Sheet1");
-
-                boolean dateExists = false;
-                for (Row row : sheet) {
-                    Cell cell = row.getCell(0);
-                    if (cell != null && cell.getCellType() == CellType.STRING) {
-                        try {
-                            LocalDate existingDate = LocalDate.parse(cell.getStringCellValue(), DateTimeFormatter.ofPattern("MM/dd/yyyy"));
-                            if (existingDate.equals(newDate)) {
-                                dateExists = true;
-                                break;
-                            }
-                        } catch (Exception ignored) {}
-                    }
-                }
+                try {
+                    XSSFSheet sheet = workbook.getNumberOfSheets() > 0 ? workbook.getSheetAt(0) : workbook.createSheet("Sheet1");
+                    GradeSheet gradeSheet = new GradeSheet(sheet);
+                    int added = 0;
 
-                if (dateExists) {
-                    System.out.println("Skipping duplicate date: " + newDate + " from file: " + pdfFile.getName());
-                    continue;
-                }
+                    for (Report report : ordered) {
+                        String[] values = report.data.get(grade);
+                        if (values == null || values.length < 6) {
+                            System.out.println("No data for grade: " + grade + " in " + report.source);
+                            continue;
+                        }
+                        if (gradeSheet.rows.containsKey(report.date)) {
+                            System.out.println("Skipping duplicate date: " + report.date + " from file: " + report.source);
+                            continue;
+                        }
 
-                LocalDate lastDate = getLastDate(sheet);
-                String[] lastThursdayData = getLastThursdayData(sheet, lastDate);
+                        LocalDate lastDate = gradeSheet.lastDate();
+                        String[] lastThursdayData = gradeSheet.lastThursdayData(lastDate);
+                        for (LocalDate date = lastDate.plusDays(1); date.isBefore(report.date); date = date.plusDays(1)) {
+                            DayOfWeek dow = date.getDayOfWeek();
+                            if (dow == DayOfWeek.THURSDAY) {
+                                lastThursdayData = gradeSheet.rowData(date);
+                            } else if ((dow == DayOfWeek.FRIDAY || dow == DayOfWeek.SATURDAY) && lastThursdayData != null) {
+                                gradeSheet.insertRow(date, lastThursdayData, true);
+                            }
+                        }
 
-                for (LocalDate date = lastDate.plusDays(1); date.isBefore(newDate); date = date.plusDays(1)) {
-                    DayOfWeek dow = date.getDayOfWeek();
-                    if (dow == DayOfWeek.THURSDAY) {
-                        lastThursdayData = getRowData(sheet, date);
-                    } else if ((dow == DayOfWeek.FRIDAY || dow == DayOfWeek.SATURDAY) && lastThursdayData != null) {
-                        insertRow(sheet, date, lastThursdayData, true);
+                        gradeSheet.insertRow(report.date, values, false);
+                        added++;
+                        System.out.println("Added " + report.date + " for grade: " + grade);
                     }
-                }
-
-                insertRow(sheet, newDate, values, false);
-                System.out.println("Added new date for grade: " + grade);
 
-                try (FileOutputStream fos = new FileOutputStream(excelFile)) {
-                    workbook.setForceFormulaRecalculation(true);
-                    workbook.write(fos);
+                    if (added == 0) {
+                        continue;
+                    }
+                    // Written beside the workbook and renamed over it, so downloads never see a partial file
+                    File tempFile = new File(excelFile.getPath() + ".tmp");
+                    try (FileOutputStream fos = new FileOutputStream(tempFile)) {
+                        workbook.setForceFormulaRecalculation(true);
+                        workbook.write(fos);
+                    }
+                    Files.move(tempFile.toPath(), excelFile.toPath(),
+                            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    InventoryTable table = InventoryTable.reload(filePrefix, sheet);
+                    Freshness.record(excelFile.getPath(), table.lastDate(), table.size());
+                } finally {
+                    workbook.close();
                 }
-                workbook.close();
                 System.out.println("Closed workbook for grade: " + grade);
             }
         }
     }
 
+    /**
+     * A grade's sheet with its dated rows indexed by date, so each report is merged without scanning
+     * the sheet. Assumes, as the updater has always kept it, that the sheet is in date order.
+     */
+    private static final class GradeSheet {
+        final XSSFSheet sheet;
+        // date -> row number
+        final TreeMap<LocalDate, Integer> rows = new TreeMap<>();
+        private CellStyle syntheticStyle;
 
-    private static LocalDate getLastDate(XSSFSheet sheet) {
-        LocalDate latest = LocalDate.MIN;
-        for (int i = 1; i <= sheet.getLastRowNum(); i++) {
-            Row row = sheet.getRow(i);
-            if (row != null) {
-                Cell cell = row.getCell(0);
-                if (cell != null && cell.getCellType() == CellType.STRING) {
-                    try {
-                        LocalDate date = LocalDate.parse(cell.getStringCellValue(), DateTimeFormatter.ofPattern("MM/dd/yyyy"));
-                        if (date.isAfter(latest)) latest = date;
-                    } catch (Exception ignored) {}
+        GradeSheet(XSSFSheet sheet) {
+            this.sheet = sheet;
+            for (int i = 1; i <= sheet.getLastRowNum(); i++) {
+                Row row = sheet.getRow(i);
+                if (row != null) {
+                    Cell cell = row.getCell(0);
+                    if (cell != null && cell.getCellType() == CellType.STRING) {
+                        try {
+                            rows.putIfAbsent(LocalDate.parse(cell.getStringCellValue(), DATE_FORMAT), i);
+                        } catch (Exception ignored) {}
+                    }
                 }
             }
         }
-        return latest.equals(LocalDate.MIN) ? LocalDate.now().minusDays(7) : latest;
-    }
 
-    private static void insertRow(XSSFSheet sheet, LocalDate date, String[] values, boolean isSynthetic) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM/dd/yyyy");
-        int insertIndex = 1; // Start after header row
-
-        // Find the correct insertion point based on LocalDate comparison
-        for (int i = 1; i <= sheet.getLastRowNum(); i++) {
-            Row row = sheet.getRow(i);
-            if (row != null) {
-                Cell cell = row.getCell(0);
-                if (cell != null && cell.getCellType() == CellType.STRING) {
-                    try {
-                        LocalDate existingDate = LocalDate.parse(cell.getStringCellValue(), formatter);
-                        if (date.isBefore(existingDate)) {
-                            insertIndex = i;
-                            break;
-                        }
-                    } catch (Exception ignored) {}
-                }
-            }
-            insertIndex = i + 1;
+        LocalDate lastDate() {
+            return rows.isEmpty() ? LocalDate.now().minusDays(7) : rows.lastKey();
         }
 
-        // Shift rows down to make space
-        if (insertIndex <= sheet.getLastRowNum()) {
-            sheet.shiftRows(insertIndex, sheet.getLastRowNum(), 1);
+        /** Data of the Thursday on or before lastDate, or null if that Thursday has no row. */
+        String[] lastThursdayData(LocalDate lastDate) {
+            LocalDate date = lastDate;
+            while (date.getDayOfWeek() != DayOfWeek.THURSDAY) {
+                date = date.minusDays(1);
+            }
+            return rowData(date);
         }
 
-        // Create and populate the new row
-        Row row = sheet.createRow(insertIndex);
-        row.createCell(0).setCellValue(date.format(formatter));
-
-        CellStyle style = sheet.getWorkbook().createCellStyle();
-        if (isSynthetic) {
-            style.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
-            style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+        String[] rowData(LocalDate date) {
+            Integer index = rows.get(date);
+            if (index == null) {
+                return null;
+            }
+            Row row = sheet.getRow(index);
+            String[] data = new String[6];
+            for (int i = 0; i < 6; i++) {
+                Cell cell = row.getCell(i + 1);
+                data[i] = cell != null ? cell.toString() : "";
+            }
+            return data;
         }
 
-        for (int i = 0; i < values.length; i++) {
-            Cell cell = row.createCell(i + 1);
-            try {
-                cell.setCellValue(Double.parseDouble(values[i].replace(",", "")));
-            } catch (NumberFormatException e) {
-                cell.setCellValue(values[i]);
+        void insertRow(LocalDate date, String[] values, boolean isSynthetic) {
+            // Before the first later date, otherwise after the last row
+            Map.Entry<LocalDate, Integer> later = rows.higherEntry(date);
+            int insertIndex;
+            if (later == null) {
+                insertIndex = sheet.getLastRowNum() + 1;
+            } else {
+                insertIndex = later.getValue();
+                sheet.shiftRows(insertIndex, sheet.getLastRowNum(), 1);
+                for (Map.Entry<LocalDate, Integer> entry : rows.tailMap(date, false).entrySet()) {
+                    entry.setValue(entry.getValue() + 1);
+                }
             }
-            if (isSynthetic) cell.setCellStyle(style);
-        }
-    }
 
+            Row row = sheet.createRow(insertIndex);
+            row.createCell(0).setCellValue(date.format(DATE_FORMAT));
+            rows.put(date, insertIndex);
 
-    private static String[] getLastThursdayData(XSSFSheet sheet, LocalDate lastDate) {
-        LocalDate date = lastDate;
-        while (date.isAfter(LocalDate.MIN)) {
-            if (date.getDayOfWeek() == DayOfWeek.THURSDAY) {
-                return getRowData(sheet, date);
+            for (int i = 0; i < values.length; i++) {
+                Cell cell = row.createCell(i + 1);
+                try {
+                    cell.setCellValue(Double.parseDouble(values[i].replace(",", "")));
+                } catch (NumberFormatException e) {
+                    cell.setCellValue(values[i]);
+                }
+                if (isSynthetic) cell.setCellStyle(syntheticStyle());
             }
-            date = date.minusDays(1);
         }
-        return null;
-    }
 
-    private static String[] getRowData(XSSFSheet sheet, LocalDate date) {
-        String dateStr = date.format(DateTimeFormatter.ofPattern("MM/dd/yyyy"));
-        for (Row row : sheet) {
-            if (row.getCell(0) != null && row.getCell(0).getStringCellValue().equals(dateStr)) {
-                String[] data = new String[6];
-                for (int i = 0; i < 6; i++) {
-                    Cell cell = row.getCell(i + 1);
-                    data[i] = cell != null ? cell.toString() : "";
-                }
-                return data;
+        /** One grey fill style per workbook, shared by every filled-in row. */
+        private CellStyle syntheticStyle() {
+            if (syntheticStyle == null) {
+                syntheticStyle = sheet.getWorkbook().createCellStyle();
+                syntheticStyle.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
+                syntheticStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
             }
+            return syntheticStyle;
         }
-        return null;
     }
 
     private static String extractDate(String text) {
@@ -0,0 +1,220 @@
+package ExcelUtil;
+
+import Utilities.SeasonalDay;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Series derived from a Magellan inventory table, added to it as extra columns after the sheet's
+ * own:
+ *
+ * <ul>
+ *   <li>"Week Over Week Change": System Inventory less its value seven days earlier
+ *   <li>"Percent Of 5 Year Range": where System Inventory sits between the lowest (0) and highest
+ *       (100) value on the same day of the year over the five years before; below 0 or above 100
+ *       when it is outside that range
+ *   <li>"Days Of Supply": System Inventory over the Offlines and MPL Racks 7-Day Average
+ * </ul>
+ *
+ * <p>Every value depends only on its own row and earlier days, so when a table is rebuilt after
+ * the updater has inserted rows, the values of the rows before the first change are copied from the
+ * old table and only the rest are computed. The inventory by year and day that the range is read
+ * from is kept with the table too, and only the entries of changed rows are redone. Rows are taken
+ * to be in date order, one per date. Missing inputs give NaN.
+ */
+final class InventoryAnalytics {
+  static final String WEEK_OVER_WEEK = "Week Over Week Change";
+  static final String PERCENT_OF_RANGE = "Percent Of 5 Year Range";
+  static final String DAYS_OF_SUPPLY = "Days Of Supply";
+  static final List<String> HEADERS = List.of(WEEK_OVER_WEEK, PERCENT_OF_RANGE, DAYS_OF_SUPPLY);
+
+  private static final String INVENTORY = "System Inventory";
+  private static final String OFFTAKE = "Offlines and MPL Racks 7-Day Average";
+  private static final int RANGE_YEARS = 5;
+
+  private InventoryAnalytics() {}
+
+  /** System Inventory by [year - firstYear][SeasonalDay], NaN where there is no row. */
+  static final class Grid {
+    final int firstYear;
+    final double[][] byYear;
+
+    Grid(int firstYear, double[][] byYear) {
+      this.firstYear = firstYear;
+      this.byYear = byYear;
+    }
+  }
+
+  /** The derived columns and the grid they were computed from, to hand to the next rebuild. */
+  static final class Derived {
+    final double[][] columns;
+    final Grid grid;
+
+    Derived(double[][] columns, Grid grid) {
+      this.columns = columns;
+      this.grid = grid;
+    }
+  }
+
+  /**
+   * @param headers the sheet's headers, without the derived ones
+   * @param columns the sheet's columns, in header order
+   * @param previous the table this one replaces, whose derived values and grid are reused up to
+   *     the first row that differs, or null to compute every row
+   * @return the derived columns in {@link #HEADERS} order, and the grid
+   */
+  static Derived derive(int[] epochDays, List<String> headers, double[][] columns, InventoryTable previous) {
+    int rows = epochDays.length;
+    double[][] derived = new double[HEADERS.size()][rows];
+    for (double[] column : derived) {
+      Arrays.fill(column, Double.NaN);
+    }
+    int inventoryIndex = indexOf(headers, INVENTORY);
+    if (inventoryIndex < 0) {
+      return new Derived(derived, null);
+    }
+    double[] inventory = columns[inventoryIndex];
+    int offtakeIndex = indexOf(headers, OFFTAKE);
+    double[] offtake = offtakeIndex < 0 ? null : columns[offtakeIndex];
+
+    int from = reusableRows(epochDays, inventory, offtake, previous);
+    if (from == 0) {
+      previous = null;
+    }
+    for (int d = 0; d < derived.length; d++) {
+      System.arraycopy(previous == null ? derived[d] : previous.column(previous.columnIndex(HEADERS.get(d))),
+          0, derived[d], 0, from);
+    }
+
+    Grid grid = updateGrid(epochDays, inventory, previous, from);
+    int firstYear = grid.firstYear;
+    double[][] byYear = grid.byYear;
+
+    // Row a week back, advanced with the row so the whole pass is linear
+    int weekBack = 0;
+    for (int row = from; row < rows; row++) {
+      double value = inventory[row];
+
+      long target = epochDays[row] - 7L;
+      weekBack = Math.min(weekBack, row);
+      while (weekBack < row && epochDays[weekBack] < target) {
+        weekBack++;
+      }
+      if (weekBack < row && epochDays[weekBack] == target) {
+        derived[0][row] = value - inventory[weekBack];
+      }
+
+      LocalDate date = LocalDate.ofEpochDay(epochDays[row]);
+      int day = SeasonalDay.of(date);
+      double min = Double.POSITIVE_INFINITY;
+      double max = Double.NEGATIVE_INFINITY;
+      for (int y = date.getYear() - RANGE_YEARS; y < date.getYear(); y++) {
+        int index = y - firstYear;
+        if (index < 0 || index >= byYear.length || byYear[index] == null) continue;
+        double past = byYear[index][day];
+        if (!Double.isNaN(past)) {
+          min = Math.min(min, past);
+          max = Math.max(max, past);
+        }
+      }
+      if (max > min) {
+        derived[1][row] = (value - min) / (max - min) * 100;
+      }
+
+      if (offtake != null && offtake[row] > 0) {
+        derived[2][row] = value / offtake[row];
+      }
+    }
+    return new Derived(derived, grid);
+  }
+
+  /**
+   * Builds the grid for the new rows from the previous table's: the entries its rows from
+   * {@code from} on had are cleared and the new rows from {@code from} on are set. Year arrays are
+   * copied before they are changed, since the previous table still serves requests.
+   */
+  private static Grid updateGrid(int[] epochDays, double[] inventory, InventoryTable previous, int from) {
+    int rows = epochDays.length;
+    if (rows == 0) {
+      return new Grid(0, new double[0][]);
+    }
+    int firstYear = LocalDate.ofEpochDay(epochDays[0]).getYear();
+    int lastYear = LocalDate.ofEpochDay(epochDays[rows - 1]).getYear();
+    Grid old = previous == null ? null : previous.analyticsGrid();
+    // Rows before from are the same, so a reused grid starts in the same year
+    if (old == null || old.firstYear != firstYear) {
+      old = null;
+      from = 0;
+    }
+
+    double[][] byYear = new double[lastYear - firstYear + 1][];
+    boolean[] copied = new boolean[byYear.length];
+    if (old != null) {
+      System.arraycopy(old.byYear, 0, byYear, 0, Math.min(old.byYear.length, byYear.length));
+      for (int row = from; row < previous.size(); row++) {
+        LocalDate date = previous.date(row);
+        int y = date.getYear() - firstYear;
+        if (y < 0 || y >= byYear.length || byYear[y] == null) continue;
+        writable(byYear, copied, y)[SeasonalDay.of(date)] = Double.NaN;
+      }
+    }
+    for (int row = from; row < rows; row++) {
+      LocalDate date = LocalDate.ofEpochDay(epochDays[row]);
+      int y = date.getYear() - firstYear;
+      if (y < 0 || y >= byYear.length) continue;
+      writable(byYear, copied, y)[SeasonalDay.of(date)] = inventory[row];
+    }
+    return new Grid(firstYear, byYear);
+  }
+
+  /** @return the year's array, copied or created the first time this rebuild changes it */
+  private static double[] writable(double[][] byYear, boolean[] copied, int y) {
+    if (!copied[y]) {
+      if (byYear[y] == null) {
+        byYear[y] = new double[SeasonalDay.DAYS];
+        Arrays.fill(byYear[y], Double.NaN);
+      } else {
+        byYear[y] = byYear[y].clone();
+      }
+      copied[y] = true;
+    }
+    return byYear[y];
+  }
+
+  /**
+   * @return how many leading rows have the same date and inputs as in the previous table
+   */
+  private static int reusableRows(int[] epochDays, double[] inventory, double[] offtake, InventoryTable previous) {
+    if (previous == null || previous.columnIndex(HEADERS.get(0)) < 0) {
+      return 0;
+    }
+    int previousInventory = previous.columnIndex(INVENTORY);
+    int previousOfftake = previous.columnIndex(OFFTAKE);
+    if (previousInventory < 0 || (offtake == null) != (previousOfftake < 0)) {
+      return 0;
+    }
+    int limit = Math.min(epochDays.length, previous.size());
+    int row = 0;
+    while (row < limit
+        && epochDays[row] == previous.epochDay(row)
+        && same(inventory[row], previous.column(previousInventory)[row])
+        && (offtake == null || same(offtake[row], previous.column(previousOfftake)[row]))) {
+      row++;
+    }
+    return row;
+  }
+
+  private static boolean same(double a, double b) {
+    return Double.compare(a, b) == 0;
+  }
+
+  private static int indexOf(List<String> headers, String name) {
+    for (int i = 0; i < headers.size(); i++) {
+      if (headers.get(i).trim().equalsIgnoreCase(name)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,161 @@
+package ExcelUtil;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An upload of inventory PDFs being added to the Magellan workbooks in the background, so the
+ * request that uploaded them can return straight away and poll for the outcome.
+ *
+ * <p>Jobs run one at a time on a single worker, since every merge holds the workbook lock anyway,
+ * and at most {@value #MAX_QUEUED} wait behind it; past that {@link #submit} refuses new ones. A job
+ * records how long it waited and how long each stage (extract, merge) took. Queued and running jobs
+ * are always kept; a finished one is kept for a day, up to the latest {@value #MAX_FINISHED}.
+ */
+public final class InventoryJob {
+  private static final int MAX_QUEUED = 16;
+  private static final int MAX_FINISHED = 1000;
+  private static final ThreadPoolExecutor WORKER = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+      new ArrayBlockingQueue<>(MAX_QUEUED), runnable -> {
+        Thread thread = new Thread(runnable, "inventory-job");
+        thread.setDaemon(true);
+        return thread;
+      });
+  // Bounded by the queue, so never evicted
+  private static final Map<String, InventoryJob> ACTIVE = new ConcurrentHashMap<>();
+  private static final Cache<String, InventoryJob> FINISHED = CacheBuilder.newBuilder()
+      .expireAfterWrite(1, TimeUnit.DAYS)
+      .maximumSize(MAX_FINISHED)
+      .build();
+
+  public enum State { QUEUED, RUNNING, SUCCEEDED, FAILED }
+
+  private final String id = UUID.randomUUID().toString();
+  // Saved file -> the name it was uploaded as
+  private final Map<File, String> files;
+  private final long submitted = System.currentTimeMillis();
+  private State state = State.QUEUED;
+  private String stage;
+  private final Map<String, Long> timings = new LinkedHashMap<>();
+  private final Map<String, String> errors = new LinkedHashMap<>();
+  private String error;
+
+  private InventoryJob(Map<File, String> files) {
+    this.files = new LinkedHashMap<>(files);
+  }
+
+  /**
+   * Queues the saved PDFs to be added to the workbooks. The job deletes the files once it is done
+   * with them.
+   *
+   * @param files saved file -> the name it was uploaded as, used in the job's errors
+   * @throws RejectedExecutionException if the queue is full; the files are left for the caller
+   */
+  public static InventoryJob submit(Map<File, String> files) {
+    InventoryJob job = new InventoryJob(files);
+    ACTIVE.put(job.id, job);
+    try {
+      WORKER.execute(job::run);
+    } catch (RejectedExecutionException e) {
+      ACTIVE.remove(job.id);
+      throw e;
+    }
+    System.out.println("Queued inventory job " + job.id + " with " + files.size() + " PDFs");
+    return job;
+  }
+
+  /**
+   * @return the job, or null if there is none with that id or it has expired
+   */
+  public static InventoryJob get(String id) {
+    InventoryJob job = ACTIVE.get(id);
+    return job != null ? job : FINISHED.getIfPresent(id);
+  }
+
+  public String id() {
+    return id;
+  }
+
+  /**
+   * @return a snapshot of the job for the status endpoint: id, state, the stage it is in while
+   *     running, timings in milliseconds by stage, and per-file and overall errors
+   */
+  public synchronized Map<String, Object> status() {
+    Map<String, Object> status = new LinkedHashMap<>();
+    status.put("id", id);
+    status.put("state", state.name());
+    if (stage != null) {
+      status.put("stage", stage);
+    }
+    status.put("files", new ArrayList<>(files.values()));
+    status.put("timings", new LinkedHashMap<>(timings));
+    status.put("errors", new LinkedHashMap<>(errors));
+    if (error != null) {
+      status.put("error", error);
+    }
+    return status;
+  }
+
+  private void run() {
+    long start = System.currentTimeMillis();
+    synchronized (this) {
+      timings.put("queued", start - submitted);
+      state = State.RUNNING;
+      stage = "extract";
+    }
+    try {
+      List<File> pdfs = new ArrayList<>(files.keySet());
+      Map<File, String> failures = new LinkedHashMap<>();
+      List<ExcelUpdater.Report> reports = ExcelUpdater.extractReports(pdfs, failures);
+      start = finishStage("extract", start, "merge");
+      synchronized (this) {
+        failures.forEach((file, reason) -> errors.put(files.get(file), reason));
+      }
+
+      ExcelUpdater.mergeReports(reports);
+      finishStage("merge", start, null);
+      synchronized (this) {
+        state = reports.isEmpty() ? State.FAILED : State.SUCCEEDED;
+      }
+    } catch (Exception e) {
+      System.err.println("Inventory job " + id + " failed: " + e.getMessage());
+      synchronized (this) {
+        error = String.valueOf(e.getMessage());
+        state = State.FAILED;
+        stage = null;
+      }
+    } finally {
+      for (File file : files.keySet()) {
+        try {
+          Files.deleteIfExists(file.toPath());
+        } catch (Exception e) {
+          System.err.println("Could not delete " + file + ": " + e.getMessage());
+        }
+      }
+      // Added before it is removed, so get always finds it
+      FINISHED.put(id, this);
+      ACTIVE.remove(id);
+    }
+    System.out.println("Inventory job " + id + " finished: " + status());
+  }
+
+  /** Records the stage's time and moves to the next one, returning the time it starts. */
+  private synchronized long finishStage(String finished, long start, String next) {
+    long now = System.currentTimeMillis();
+    timings.put(finished, now - start);
+    stage = next;
+    return now;
+  }
+}
@@ -0,0 +1,318 @@
+package ExcelUtil;
+
+import Utilities.Freshness;
+import Utilities.SeasonalAggregator;
+import Utilities.SeasonalDay;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+/**
+ * Column-oriented copy of the first sheet of a Magellan inventory workbook (data/new{fuel}.xlsx):
+ * the date of every dated row as an epoch day, and one array of doubles per header, NaN where the
+ * cell is empty or not a number. Rows keep their sheet order. After the sheet's columns come the
+ * series {@link InventoryAnalytics} derives from them (week over week change, percent of the five
+ * year range, days of supply), which are looked up and charted like any other column.
+ *
+ * <p>Tables are read from the workbook on first use and rebuilt by {@link ExcelUpdater} from the
+ * sheet it has just written, so requests never open the workbook. The seasonal view of every column
+ * ({@link #seasonal}) is computed at the same time. A table also notes the size and
+ * modification time of the file it came from and is read again if the file is replaced some other
+ * way.
+ */
+public final class InventoryTable {
+  private static final String EXCEL_DIR = "data/new";
+  private static final Map<String, InventoryTable> TABLES = new ConcurrentHashMap<>();
+  private static final SeasonalAggregator AVERAGE = new SeasonalAggregator();
+  private static final int HISTORY_YEARS = 10;
+  private static final int AVERAGE_YEARS = 5;
+
+  private final long size;
+  private final long modified;
+  private final int[] epochDays;
+  private final List<String> headers;
+  private final double[][] columns;
+  private final InventoryAnalytics.Grid analyticsGrid;
+  // Recomputed when a new year starts
+  private volatile Seasons seasons;
+
+  /** The seasonal view of every column, for the year it was computed in. */
+  private static final class Seasons {
+    final int year;
+    final List<Map<String, double[]>> byColumn;
+
+    Seasons(int year, List<Map<String, double[]>> byColumn) {
+      this.year = year;
+      this.byColumn = byColumn;
+    }
+  }
+
+  private InventoryTable(long size, long modified, int[] epochDays, List<String> headers, double[][] columns,
+      InventoryAnalytics.Grid analyticsGrid) {
+    this.size = size;
+    this.modified = modified;
+    this.epochDays = epochDays;
+    this.headers = headers;
+    this.columns = columns;
+    this.analyticsGrid = analyticsGrid;
+    this.seasons = computeSeasons(LocalDate.now().getYear());
+  }
+
+  /**
+   * @return the fuel's table, or null if it has no workbook
+   */
+  public static InventoryTable get(String fuel) throws IOException {
+    File file = file(fuel);
+    InventoryTable table = TABLES.get(fuel);
+    if (table != null && table.size == file.length() && table.modified == file.lastModified()) {
+      return table;
+    }
+    // The updater holds the lock while it writes, so a workbook is never read half written
+    synchronized (ExcelUpdater.FILE_LOCK) {
+      if (!file.exists()) {
+        TABLES.remove(fuel);
+        return null;
+      }
+      try (FileInputStream fis = new FileInputStream(file);
+          XSSFWorkbook workbook = new XSSFWorkbook(fis)) {
+        table = build(file, workbook.getSheetAt(0), null);
+      }
+      TABLES.put(fuel, table);
+      // The workbook may have been replaced without going through ExcelUpdater
+      Freshness.refresh(file.getPath(), table.lastDate(), table.size());
+      System.out.println("Loaded inventory table for " + fuel + ": " + table.size() + " rows");
+      return table;
+    }
+  }
+
+  /**
+   * Reads every fuel's workbook on a background thread so the first chart request does not have to.
+   */
+  public static void warmUp() {
+    Thread thread = new Thread(() -> {
+      long start = System.currentTimeMillis();
+      for (String grade : PDFToExcel.PRODUCT_GRADES) {
+        String fuel = grade.substring(0, 1);
+        try {
+          get(fuel);
+        } catch (Exception e) {
+          System.err.println("Could not read inventory workbook for " + fuel + ": " + e.getMessage());
+        }
+      }
+      System.out.println("Loaded inventory tables in " + (System.currentTimeMillis() - start) + " ms");
+    }, "inventory-warmup");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Replaces the fuel's table with the contents of the sheet just written to its workbook. The
+   * derived columns of rows before the first new one are carried over from the old table.
+   */
+  static InventoryTable reload(String fuel, Sheet sheet) {
+    InventoryTable table = build(file(fuel), sheet, TABLES.get(fuel));
+    TABLES.put(fuel, table);
+    System.out.println("Reloaded inventory table for " + fuel + ": " + table.size() + " rows");
+    return table;
+  }
+
+  /**
+   * @return the workbook the fuel's table is read from
+   */
+  static File file(String fuel) {
+    return new File(EXCEL_DIR + fuel + ".xlsx");
+  }
+
+  public int size() {
+    return epochDays.length;
+  }
+
+  public LocalDate date(int row) {
+    return LocalDate.ofEpochDay(epochDays[row]);
+  }
+
+  public int epochDay(int row) {
+    return epochDays[row];
+  }
+
+  /**
+   * @return the inventory grid the derived columns were computed from, or null if the sheet has no
+   *     System Inventory column
+   */
+  InventoryAnalytics.Grid analyticsGrid() {
+    return analyticsGrid;
+  }
+
+  /**
+   * @return the date of the last row, or null if the table is empty
+   */
+  public LocalDate lastDate() {
+    return epochDays.length == 0 ? null : date(epochDays.length - 1);
+  }
+
+  /**
+   * @return the header names of the columns after the date column, in sheet order, followed by the
+   *     derived columns of {@link InventoryAnalytics}
+   */
+  public List<String> headers() {
+    return headers;
+  }
+
+  /**
+   * @return the index of the header matching name (trimmed, ignoring case), or -1
+   */
+  public int columnIndex(String name) {
+    for (int i = 0; i < headers.size(); i++) {
+      if (headers.get(i).trim().equalsIgnoreCase(name.trim())) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @return the column's values by row; shared, so must not be modified
+   */
+  public double[] column(int index) {
+    return columns[index];
+  }
+
+  /**
+   * The column laid out by year for the dashboard's seasonal chart: the current year, then the ten
+   * before it oldest first, each indexed by {@link SeasonalDay} with Feb 29 left empty, followed by
+   * "5YEARAVG" over the five years before this one and "10YEARAVG" over all eleven. Computed when
+   * the table is built; the arrays are shared and must not be modified.
+   */
+  public Map<String, double[]> seasonal(int column) {
+    int year = LocalDate.now().getYear();
+    Seasons current = seasons;
+    if (current.year != year) {
+      current = computeSeasons(year);
+      seasons = current;
+    }
+    return current.byColumn.get(column);
+  }
+
+  private Seasons computeSeasons(int currentYear) {
+    List<String> years = new ArrayList<>();
+    years.add(Integer.toString(currentYear));
+    for (int y = currentYear - HISTORY_YEARS; y < currentYear; y++) {
+      years.add(Integer.toString(y));
+    }
+
+    List<Map<String, double[]>> byColumn = new ArrayList<>(columns.length);
+    for (double[] column : columns) {
+      Map<String, double[]> yearSeries = new LinkedHashMap<>();
+      for (String year : years) {
+        double[] series = new double[SeasonalDay.DAYS];
+        Arrays.fill(series, Double.NaN);
+        yearSeries.put(year, series);
+      }
+
+      for (int row = 0; row < epochDays.length; row++) {
+        LocalDate date = date(row);
+        int day = SeasonalDay.of(date);
+        if (day == SeasonalDay.FEB_29) continue;
+
+        double[] series = yearSeries.get(Integer.toString(date.getYear()));
+        if (!Double.isNaN(column[row]) && series != null) {
+          series[day] = column[row];
+        }
+      }
+
+      List<double[]> fiveYears = new ArrayList<>();
+      for (String year : years.subList(years.size() - AVERAGE_YEARS, years.size())) {
+        fiveYears.add(yearSeries.get(year));
+      }
+      List<double[]> allYears = new ArrayList<>(yearSeries.values());
+      yearSeries.put("5YEARAVG", AVERAGE.aggregateDoubles(fiveYears).mean);
+      yearSeries.put("10YEARAVG", AVERAGE.aggregateDoubles(allYears).mean);
+      byColumn.add(Collections.unmodifiableMap(yearSeries));
+    }
+    return new Seasons(currentYear, byColumn);
+  }
+
+  private static InventoryTable build(File file, Sheet sheet, InventoryTable previous) {
+    List<String> headers = new ArrayList<>();
+    Row headerRow = sheet.getRow(0);
+    if (headerRow != null) {
+      for (int c = 1; c < headerRow.getLastCellNum(); c++) {
+        Cell cell = headerRow.getCell(c);
+        headers.add(cell != null && cell.getCellType() == CellType.STRING ? cell.getStringCellValue() : "");
+      }
+    }
+
+    int capacity = Math.max(sheet.getLastRowNum(), 0);
+    int[] epochDays = new int[capacity];
+    double[][] columns = new double[headers.size()][capacity];
+    int rows = 0;
+    for (int i = 1; i <= sheet.getLastRowNum(); i++) {
+      Row row = sheet.getRow(i);
+      if (row == null) continue;
+      LocalDate date = extractDate(row.getCell(0));
+      if (date == null) continue;
+
+      epochDays[rows] = (int) date.toEpochDay();
+      for (int c = 0; c < columns.length; c++) {
+        columns[c][rows] = numericValue(row.getCell(c + 1));
+      }
+      rows++;
+    }
+
+    for (int c = 0; c < columns.length; c++) {
+      columns[c] = Arrays.copyOf(columns[c], rows);
+    }
+    epochDays = Arrays.copyOf(epochDays, rows);
+
+    InventoryAnalytics.Derived derived = InventoryAnalytics.derive(epochDays, headers, columns, previous);
+    double[][] allColumns = Arrays.copyOf(columns, columns.length + derived.columns.length);
+    System.arraycopy(derived.columns, 0, allColumns, columns.length, derived.columns.length);
+    headers.addAll(InventoryAnalytics.HEADERS);
+    return new InventoryTable(file.length(), file.lastModified(), epochDays,
+        Collections.unmodifiableList(headers), allColumns, derived.grid);
+  }
+
+  /** Dates are either date-formatted numbers or "MM/dd/yyyy" text. */
+  private static LocalDate extractDate(Cell cell) {
+    if (cell == null) return null;
+    try {
+      if (cell.getCellType() == CellType.NUMERIC && DateUtil.isCellDateFormatted(cell)) {
+        return cell.getLocalDateTimeCellValue().toLocalDate();
+      } else if (cell.getCellType() == CellType.STRING) {
+        String[] parts = cell.getStringCellValue().split("/");
+        if (parts.length == 3) {
+          return LocalDate.of(Integer.parseInt(parts[2].trim()), Integer.parseInt(parts[0].trim()),
+              Integer.parseInt(parts[1].trim()));
+        }
+      }
+    } catch (Exception ignored) {}
+    return null;
+  }
+
+  /** Numbers and formulas with a numeric result; anything else is NaN. */
+  private static double numericValue(Cell cell) {
+    if (cell == null) return Double.NaN;
+    try {
+      if (cell.getCellType() == CellType.NUMERIC) {
+        return cell.getNumericCellValue();
+      } else if (cell.getCellType() == CellType.FORMULA && cell.getCachedFormulaResultType() == CellType.NUMERIC) {
+        return cell.getNumericCellValue();
+      }
+    } catch (Exception ignored) {}
+    return Double.NaN;
+  }
+}
@@ -1,7 +1,6 @@
 package ExcelUtil;
 
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.text.PDFTextStripper;
+import Utilities.PdfText;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -47,22 +46,22 @@ public class PDFInventoryExtractor {
   }
 
   private static void processPDF(File pdfFile, Map<String, Map<String, String>> inventoryData) throws IOException {
-    try (PDDocument document = PDDocument.load(pdfFile)) {
-      PDFTextStripper stripper = new PDFTextStripper();
-      String text = stripper.getText(document);
+    String text;
+    try (PdfText pdf = PdfText.open(pdfFile)) {
+      text = pdf.text();
+    }
 
-      String date = extractDate(text);
-      if (date == null) {
-        System.err.println("Date not found in: " + pdfFile.getName());
-        return;
-      }
+    String date = extractDate(text);
+    if (date == null) {
+      System.err.println("Date not found in: " + pdfFile.getName());
+      return;
+    }
 
-      Map<String, String> productInventory = extractInventoryData(text);
-      if (!productInventory.isEmpty()) {
-        inventoryData.put(date, productInventory);
-      } else {
-        System.err.println("No inventory data extracted from: " + pdfFile.getName());
-      }
+    Map<String, String> productInventory = extractInventoryData(text);
+    if (!productInventory.isEmpty()) {
+      inventoryData.put(date, productInventory);
+    } else {
+      System.err.println("No inventory data extracted from: " + pdfFile.getName());
     }
   }
 
@@ -75,23 +74,14 @@ public class PDFInventoryExtractor {
 
   private static Map<String, String> extractInventoryData(String text) {
     Map<String, String> inventory = new LinkedHashMap<>();
-    String[] lines = text.split("\\r?\\n");
-
-    for (String line : lines) {
-      // Check for each known product grade
-      for (String grade : PRODUCT_GRADES) {
-        if (line.startsWith(grade)) {
-          // Extract the SYSTEM INVENTORY value (first number after grade)
-          String[] parts = line.substring(grade.length()).trim().split("\\s+");
-          if (parts.length > 0) {
-            String inventoryValue = parts[0].replace(",", "");
-            inventory.put(grade, inventoryValue);
-          }
-          break;
-        }
+    Map<String, String> lines = PdfText.linesStartingWith(text, Arrays.asList(PRODUCT_GRADES));
+    for (String grade : PRODUCT_GRADES) {
+      String rest = lines.get(grade);
+      if (rest != null) {
+        // The SYSTEM INVENTORY value is the first number after the grade
+        inventory.put(grade, rest.split("\\s+")[0].replace(",", ""));
       }
     }
-
     return inventory;
   }
 
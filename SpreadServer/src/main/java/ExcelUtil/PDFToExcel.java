@@ -1,7 +1,6 @@
 package ExcelUtil;
 
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.text.PDFTextStripper;
+import Utilities.PdfText;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import java.io.File;
@@ -26,6 +25,9 @@ public class PDFToExcel {
             "Y #1 ULSD FUEL OIL"
     };
 
+    static final List<String> GRADES = List.of(PRODUCT_GRADES);
+    private static final java.util.regex.Pattern AS_OF = java.util.regex.Pattern.compile("AS OF:\\s*(\\d{2}/\\d{2}/\\d{4})");
+
     private static final String[] CSV_HEADERS = {
             "Date",
             "System Inventory",
@@ -46,69 +48,75 @@ public class PDFToExcel {
             return;
         }
 
-        try (PDDocument document = PDDocument.load(pdfFile)) {
-            PDFTextStripper stripper = new PDFTextStripper();
-            String text = stripper.getText(document);
-
-            String date = extractDate(text);
-            System.out.println("Extracted Date: " + (date != null ? date : "Not found"));
-
-            for (String grade : PRODUCT_GRADES) {
-                String[] values = extractProductData(text, grade);
-                System.out.println("Grade: " + grade);
-                if (values != null) {
-                    System.out.println("Values: " + Arrays.toString(values));
-                } else {
-                    System.out.println("No data found.");
-                }
+        Map<String, String[]> data = processPDF(pdfFile);
+        System.out.println("Extracted Date: " + data.get("DATE")[0]);
+        for (String grade : PRODUCT_GRADES) {
+            System.out.println("Grade: " + grade);
+            if (data.containsKey(grade)) {
+                System.out.println("Values: " + Arrays.toString(data.get(grade)));
+            } else {
+                System.out.println("No data found.");
             }
         }
     }
 
 
+    /**
+     * Reads the AS OF date and each grade's six values from an inventory report. Pages are read in
+     * order and reading stops at the page where the date and every grade have been found, which so
+     * far is always the first.
+     */
     public static Map<String, String[]> processPDF(File pdfFile) throws IOException {
-        Map<String, String[]> result = new LinkedHashMap<>();
-        try (PDDocument document = PDDocument.load(pdfFile)) {
-            PDFTextStripper stripper = new PDFTextStripper();
-            String text = stripper.getText(document);
-            String date = extractDate(text);
-            if (date == null) {
-                throw new IOException("Date not found in: " + pdfFile.getName());
-            }
-            for (String grade : PRODUCT_GRADES) {
-                String[] values = extractProductData(text, grade);
-                if (values != null) {
-                    result.put(grade, values);
+        String date = null;
+        Map<String, String> lines = new LinkedHashMap<>();
+        try (PdfText pdf = PdfText.open(pdfFile)) {
+            for (int page = 1; page <= pdf.pages() && (date == null || lines.size() < GRADES.size()); page++) {
+                String text = pdf.page(page);
+                if (date == null) {
+                    date = extractDate(text);
                 }
+                PdfText.linesStartingWith(text, GRADES, lines);
+            }
+        }
+        if (date == null) {
+            throw new IOException("Date not found in: " + pdfFile.getName());
+        }
+
+        Map<String, String[]> result = new LinkedHashMap<>();
+        for (String grade : PRODUCT_GRADES) {
+            String[] values = productValues(lines.get(grade));
+            if (values != null) {
+                result.put(grade, values);
             }
-            result.put("DATE", new String[] { date }); // Include date for reference
         }
+        result.put("DATE", new String[] { date }); // Include date for reference
         return result;
     }
 
 
     private static String extractDate(String text) {
-        java.util.regex.Pattern pattern = java.util.regex.Pattern.compile("AS OF:\\s*(\\d{2}/\\d{2}/\\d{4})");
-        java.util.regex.Matcher matcher = pattern.matcher(text);
+        java.util.regex.Matcher matcher = AS_OF.matcher(text);
         return matcher.find() ? matcher.group(1) : null;
     }
 
-    private static String[] extractProductData(String text, String productGrade) {
-        String[] lines = text.split("\\r?\\n");
-        for (String line : lines) {
-            if (line.startsWith(productGrade)) {
-                String[] parts = line.substring(productGrade.length()).trim().split("\\s+");
-                if (parts.length >= 6) {
-                    String[] values = new String[6];
-                    for (int i = 0; i < 6; i++) {
-                        values[i] = parts[i].replace(",", "");
-                    }
-                    return values;
-                }
-                break;
-            }
+    /**
+     * @param rest the rest of the grade's line, or null if the report has none
+     * @return the first six numbers on the line with thousands separators removed, or null if it
+     *     has fewer
+     */
+    private static String[] productValues(String rest) {
+        if (rest == null) {
+            return null;
+        }
+        String[] parts = rest.split("\\s+");
+        if (parts.length < 6) {
+            return null;
+        }
+        String[] values = new String[6];
+        for (int i = 0; i < 6; i++) {
+            values[i] = parts[i].replace(",", "");
         }
-        return null;
+        return values;
     }
 
     private static void writeToExcel(String outputFile, Map<String, Map<String, String[]>> productData) {
@@ -0,0 +1,124 @@
+package ExcelUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+/**
+ * Compares reading the Magellan inventory reports in data/pdf the way PDFToExcel used to (strip
+ * every page of a fully loaded document, then split the text into lines again for each grade) with
+ * {@link PDFToExcel#processPDF} on top of {@link Utilities.PdfText}. Both read the same files from
+ * disk, and the results are checked to be the same.
+ *
+ * <p>Run from the SpreadServer directory: java -cp target/classes:... ExcelUtil.PdfExtractionBenchmark
+ */
+public class PdfExtractionBenchmark {
+  private static final Pattern AS_OF = Pattern.compile("AS OF:\\s*(\\d{2}/\\d{2}/\\d{4})");
+  private static final int WARMUP_ROUNDS = 3;
+  private static final int TIMED_ROUNDS = 5;
+
+  public static void main(String[] args) throws IOException {
+    File[] files = new File("data/pdf").listFiles((dir, name) -> name.toLowerCase().endsWith(".pdf"));
+    if (files == null || files.length == 0) {
+      System.out.println("No PDF files found in data/pdf");
+      return;
+    }
+    Arrays.sort(files);
+    // PDFBox logs a warning for every embedded TrueType font it has to repair
+    java.util.logging.Logger.getLogger("org.apache.pdfbox").setLevel(java.util.logging.Level.SEVERE);
+
+    for (File file : files) {
+      Map<String, String[]> legacy = legacy(file);
+      Map<String, String[]> current = PDFToExcel.processPDF(file);
+      if (!same(legacy, current)) {
+        throw new IllegalStateException("Results differ for " + file.getName());
+      }
+    }
+    System.out.printf("%d reports, results identical%n", files.length);
+
+    run("legacy whole-document strip", files, PdfExtractionBenchmark::legacy);
+    run("PdfText page scan", files, PDFToExcel::processPDF);
+  }
+
+  private interface Workload {
+    Map<String, String[]> extract(File pdf) throws IOException;
+  }
+
+  private static void run(String name, File[] files, Workload workload) throws IOException {
+    long sink = 0;
+    for (int round = 0; round < WARMUP_ROUNDS; round++) {
+      for (File file : files) {
+        sink += workload.extract(file).size();
+      }
+    }
+
+    long allocatedBefore = allocatedBytes();
+    long start = System.nanoTime();
+    for (int round = 0; round < TIMED_ROUNDS; round++) {
+      for (File file : files) {
+        sink += workload.extract(file).size();
+      }
+    }
+    double millis = (System.nanoTime() - start) / 1e6 / TIMED_ROUNDS;
+    double allocated = (allocatedBytes() - allocatedBefore) / (1024.0 * 1024) / TIMED_ROUNDS;
+    System.out.printf("%-30s %8.1f ms/round %6.2f ms/report %8.1f MB allocated/round   (checksum %d)%n", name,
+        millis, millis / files.length, allocated, sink);
+  }
+
+  /** Bytes allocated by this thread so far, or 0 where the JVM can't say. */
+  private static long allocatedBytes() {
+    java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (threads instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    return 0;
+  }
+
+  /** What PDFToExcel.processPDF did before it used PdfText. */
+  private static Map<String, String[]> legacy(File pdfFile) throws IOException {
+    Map<String, String[]> result = new LinkedHashMap<>();
+    try (PDDocument document = PDDocument.load(pdfFile)) {
+      String text = new PDFTextStripper().getText(document);
+      Matcher matcher = AS_OF.matcher(text);
+      if (!matcher.find()) {
+        throw new IOException("Date not found in: " + pdfFile.getName());
+      }
+      for (String grade : PDFToExcel.PRODUCT_GRADES) {
+        for (String line : text.split("\\r?\\n")) {
+          if (line.startsWith(grade)) {
+            String[] parts = line.substring(grade.length()).trim().split("\\s+");
+            if (parts.length >= 6) {
+              String[] values = new String[6];
+              for (int i = 0; i < 6; i++) {
+                values[i] = parts[i].replace(",", "");
+              }
+              result.put(grade, values);
+            }
+            break;
+          }
+        }
+      }
+      result.put("DATE", new String[] {matcher.group(1)});
+    }
+    return result;
+  }
+
+  private static boolean same(Map<String, String[]> a, Map<String, String[]> b) {
+    if (!a.keySet().equals(b.keySet())) {
+      return false;
+    }
+    for (Map.Entry<String, String[]> entry : a.entrySet()) {
+      if (!Arrays.equals(entry.getValue(), b.get(entry.getKey()))) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
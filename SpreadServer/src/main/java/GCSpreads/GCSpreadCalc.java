@@ -1,8 +1,10 @@
 package GCSpreads;
 
+import Utilities.SeasonalAggregator;
+import Utilities.SeasonalDay;
+import Utilities.SeasonalStats;
+import Utilities.SpreadExpression;
 import java.io.*;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.time.Year;
 import java.util.*;
 
@@ -10,14 +12,16 @@ public class GCSpreadCalc {
 
   public static void main(String[] args) {
     try {
-      Map<String, Map<String, Float>> spreadDifference = computeDifference("A", "D");
+      Map<String, float[]> spreadDifference = computeDifference("A", "D");
 
       // Print the results
       for (String year : spreadDifference.keySet()) {
         System.out.println("Year: " + year);
-        Map<String, Float> dailySpreads = spreadDifference.get(year);
-        for (Map.Entry<String, Float> entry : dailySpreads.entrySet()) {
-          System.out.printf("  %s: %.2f%n", entry.getKey(), entry.getValue());
+        float[] dailySpreads = spreadDifference.get(year);
+        for (int day = 0; day < SeasonalDay.DAYS; day++) {
+          if (!Float.isNaN(dailySpreads[day])) {
+            System.out.printf("  %s: %.2f%n", SeasonalDay.Label.SHORT.of(day), dailySpreads[day]);
+          }
         }
         System.out.println();
       }
@@ -27,126 +31,67 @@ public class GCSpreadCalc {
     }
   }
 
-  public static Map<String, Map<String, Float>> computeDifference(String code1, String code2) throws IOException {
-    // Load data from both CSV files
-    Map<String, Map<String, Float>> data1 = loadDataFromCSV(code1);
-    Map<String, Map<String, Float>> data2 = loadDataFromCSV(code2);
-
-    // Calculate daily spreads for each year
-    Map<String, Map<String, Float>> spreadDifferences = new LinkedHashMap<>();
-
-    int currentYear = Year.now().getValue();
-    String year1 = Integer.toString(currentYear - 5);
-    String year2 = Integer.toString(currentYear - 4);
-    String year3 = Integer.toString(currentYear - 3);
-    String year4 = Integer.toString(currentYear - 2);
-    String year5 = Integer.toString(currentYear - 1);
-    String currentyear = Integer.toString(currentYear);
-
-
-    // Process each year from 2020-2025
-    for (String year : Arrays.asList(year1, year2, year3, year4, year5, currentyear)) {
-      if (data1.containsKey(year) && data2.containsKey(year)) {
-        Map<String, Float> yearDiff = new LinkedHashMap<>();
-        Map<String, Float> yearData1 = data1.get(year);
-        Map<String, Float> yearData2 = data2.get(year);
+  /**
+   * Daily spread of code1 minus code2 for the current year and the five before it, plus their
+   * "5YEARAVG". Series are indexed by {@link SeasonalDay} with NaN on days without a spread; the
+   * dashboard keys them by {@link SeasonalDay.Label#SHORT} in calendar order. Both grades are read
+   * from the resident {@link GradeCube}, so any two of its grades can be compared.
+   *
+   * @return null if fewer than five of the years have data for both grades
+   */
+  public static Map<String, float[]> computeDifference(String code1, String code2) throws IOException {
+    // A day missing from either grade stays NaN
+    return computeYears(year -> GradeCube.difference(code1, code2, year));
+  }
 
-        // Calculate difference for each date
-        for (String date : yearData1.keySet()) {
-          if (yearData2.containsKey(date)) {
-            float val1 = yearData1.get(date);
-            float val2 = yearData2.get(date);
-            yearDiff.put(date, val1 - val2);
-          }
-        }
-        spreadDifferences.put(year, yearDiff);
+  /**
+   * Same as {@link #computeDifference} for any {@link SpreadExpression} over the grades of the
+   * {@link GradeCube}, e.g. "A - D - 0.5*Nap".
+   *
+   * @return null if fewer than five of the years have data for every grade in the expression
+   */
+  public static Map<String, float[]> computeExpression(String expression) throws IOException {
+    SpreadExpression plan = SpreadExpression.compile(expression);
+    for (String grade : plan.names()) {
+      if (!GradeCube.GRADES.contains(grade)) {
+        throw new IllegalArgumentException("Unknown grade " + grade + ", expected one of " + GradeCube.GRADES);
       }
     }
-
-    // Calculate 5-year average (2020-2024)
-    if (spreadDifferences.size() >= 5) {
-      Map<String, Float> avgMap = new LinkedHashMap<>();
-      Set<String> commonDates = new HashSet<>(data1.get(year1).keySet());
-      commonDates.retainAll(data2.get(year1).keySet());
-
-      for (String date : commonDates) {
-        float sum = 0f;
-        int count = 0;
-
-        for (String year : Arrays.asList(year1, year2, year3, year4, year5)) {
-          if (spreadDifferences.get(year) != null &&
-              spreadDifferences.get(year).get(date) != null) {
-            sum += spreadDifferences.get(year).get(date);
-            count++;
-          }
-        }
-
-        if (count > 0) {
-          avgMap.put(date, sum / count);
-        }
+    return computeYears(year -> {
+      Map<String, double[]> grades = new HashMap<>();
+      for (String grade : plan.names()) {
+        grades.put(grade, GradeCube.get(grade, year));
       }
+      return plan.evaluate(grades::get, SeasonalDay.DAYS);
+    });
+  }
 
-      SimpleDateFormat sdf = new SimpleDateFormat("M/d");
-      List<Map.Entry<String, Float>> entries = new ArrayList<>(avgMap.entrySet());
+  private interface YearSeries {
+    double[] compute(int year) throws IOException;
+  }
 
-      entries.sort((e1, e2) -> {
-        try {
-          Date d1 = sdf.parse(e1.getKey());
-          Date d2 = sdf.parse(e2.getKey());
-          return d1.compareTo(d2);
-        } catch (ParseException e) {
-          throw new RuntimeException("Invalid date format in keys", e);
-        }
-      });
+  private static Map<String, float[]> computeYears(YearSeries yearSeries) throws IOException {
+    Map<String, float[]> spreadDifferences = new LinkedHashMap<>();
+    List<float[]> averageYears = new ArrayList<>();
 
-      Map<String, Float> sortedMap = new LinkedHashMap<>();
-      for (Map.Entry<String, Float> entry : entries) {
-        sortedMap.put(entry.getKey(), entry.getValue());
+    int currentYear = Year.now().getValue();
+    for (int year = currentYear - 5; year <= currentYear; year++) {
+      double[] values = yearSeries.compute(year);
+      if (values == null) continue;
+
+      float[] series = SeasonalAggregator.toFloats(values);
+      spreadDifferences.put(Integer.toString(year), series);
+      if (year < currentYear) {
+        averageYears.add(series);
       }
+    }
 
-      spreadDifferences.put("5YEARAVG", sortedMap);
+    // Calculate 5-year average over the five years before this one
+    if (spreadDifferences.size() >= 5) {
+      SeasonalStats stats = new SeasonalAggregator().aggregate(averageYears);
+      spreadDifferences.put("5YEARAVG", SeasonalAggregator.toFloats(stats.mean));
       return spreadDifferences;
     }
     return null;
   }
-
-  private static Map<String, Map<String, Float>> loadDataFromCSV(String code) throws IOException {
-    String filepath = "data/spreads/GulfCoast/" + code + ".csv";
-    File file = new File(filepath);
-
-    Map<String, Map<String, Float>> data = new LinkedHashMap<>();
-    BufferedReader reader = new BufferedReader(new FileReader(file));
-
-    // Read header to get years
-    String headerLine = reader.readLine();
-    String[] headers = headerLine.split(",");
-
-    // Initialize maps for each year
-    for (int i = 1; i < headers.length; i++) {
-      data.put(headers[i].trim(), new LinkedHashMap<>());
-    }
-
-    // Read data rows
-    String line;
-    while ((line = reader.readLine()) != null) {
-      String[] tokens = line.split(",");
-      if (tokens.length < 2) continue;
-
-      String date = tokens[0].trim();
-
-      for (int i = 1; i < tokens.length && i < headers.length; i++) {
-        if (!tokens[i].trim().isEmpty()) {
-          try {
-            float value = Float.parseFloat(tokens[i].trim());
-            data.get(headers[i].trim()).put(date, value);
-          } catch (NumberFormatException e) {
-            System.err.println("Skipping invalid number at " + headers[i] + " " + date);
-          }
-        }
-      }
-    }
-
-    reader.close();
-    return data;
-  }
-}
\ No newline at end of file
+}
@@ -12,11 +12,13 @@ import java.time.*;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.List;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.CellType;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 public class GCSpreadUpdater {
 
@@ -35,6 +37,26 @@ public class GCSpreadUpdater {
       Map.entry("Dec", 12)
   );
 
+  // Instrument name in the pricing quote's header row -> grade code
+  private static final Map<String, String> HEADER_MAPPING = Map.of(
+      "Platts Gasoline CBOB 87 USGC Houston Prompt Pipeline", "A",
+      "Platts Gasoline CBOB 93 USGC Houston Prompt Pipeline", "D",
+      "Platts Gasoline CBOB Chicago Buckeye Complex", "ChiCBOB",
+      "Platts Gasoline Prem Unleaded 91 Chicago Pipe", "Chi91",
+      "Platts Gasoline RBOB 83.7 USGC Houston prompt pipeline", "F",
+      "Platts Gasoline RBOB 91.4 USGC Houston Prompt Pipeline", "H",
+      "Platts Gasoline RBOB Chicago Buckeye Complex", "ChiRBOB",
+      "Platts Gasoline Unl 87 USGC Prompt Pipeline", "M",
+      "Platts Gasoline Unl 93 USGC Prompt Pipeline", "GC93",
+      "Platts Naphtha Cargo FOB US Gulf Coast", "Nap"
+  );
+
+  private static final String QUOTE_MAILBOX = "automatedreports@rioenergy.com";
+  private static final String QUOTE_SUBJECT = "pricing quote";
+  // Graph throttles a mailbox at a handful of concurrent requests
+  private static final int MAX_DOWNLOADS = 4;
+  private static final ExecutorService DOWNLOADS = Executors.newFixedThreadPool(MAX_DOWNLOADS, downloadThreadFactory());
+
   public static void main(String[] args) {
     try {
       LocalDate lastDataDate = getLastUpdatedDateFromCSV("data/spreads/GulfCoast/A.csv").plusDays(1);
@@ -47,9 +69,7 @@ public class GCSpreadUpdater {
       System.out.println(allPricingData);
       if (!allPricingData.isEmpty()) {
         System.out.println("Updating CSVs with all missing data...");
-        for (Map.Entry<LocalDate, Map<String, Double>> entry : allPricingData.entrySet()) {
-          GCcsvupdater.updateSpreadCSVs(entry.getValue(), entry.getKey());
-        }
+        GCcsvupdater.updateSpreadCSVs(allPricingData);
       } else {
         System.out.println("No new pricing data found.");
       }
@@ -76,9 +96,14 @@ public class GCSpreadUpdater {
     }
   }
 
+  /**
+   * Finds the pricing quote emails received from startDate to endDate (UTC days, inclusive) with one
+   * paged query filtered on the server, then downloads and parses their spreadsheets concurrently.
+   * When a day has several quotes the latest one is used.
+   *
+   * @return the parsed quotes by the day their email was received
+   */
   public static Map<LocalDate, Map<String, Double>> getAllPricingData(LocalDate startDate, LocalDate endDate) throws Exception {
-    Map<LocalDate, Map<String, Double>> result = new TreeMap<>();
-
     // Authenticate once
     String accessToken = getAccessToken();
     IAuthenticationProvider authProvider = new SimpleAuthProvider(accessToken);
@@ -86,51 +111,70 @@ public class GCSpreadUpdater {
         .authenticationProvider(authProvider)
         .buildClient();
 
-    // Process each day
-    for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
-      OffsetDateTime since = date.atStartOfDay().atOffset(ZoneOffset.UTC);
-      OffsetDateTime until = date.plusDays(1).atStartOfDay().atOffset(ZoneOffset.UTC);
+    OffsetDateTime since = startDate.atStartOfDay().atOffset(ZoneOffset.UTC);
+    OffsetDateTime until = endDate.plusDays(1).atStartOfDay().atOffset(ZoneOffset.UTC);
+    String filter = "receivedDateTime ge " + since + " and receivedDateTime lt " + until
+        + " and contains(subject, '" + QUOTE_SUBJECT + "')";
+    System.out.println("Searching messages with filter: " + filter);
 
+    // Newest first, so the first message seen for a day is its latest quote
+    Map<LocalDate, Message> messagesByDate = new TreeMap<>();
+    MessageCollectionPage messages = graphClient.users(QUOTE_MAILBOX).messages()
+        .buildRequest()
+        .filter(filter)
+        .select("id,subject,receivedDateTime")
+        .orderBy("receivedDateTime desc")
+        .top(100)
+        .get();
+    while (messages != null) {
+      for (Message message : messages.getCurrentPage()) {
+        System.out.println("checking email: " + message.subject);
+        if (message.subject != null && message.subject.toLowerCase().contains(QUOTE_SUBJECT)
+            && message.receivedDateTime != null) {
+          messagesByDate.putIfAbsent(message.receivedDateTime.atZoneSameInstant(ZoneOffset.UTC).toLocalDate(), message);
+        }
+      }
+      MessageCollectionRequestBuilder nextPage = messages.getNextPage();
+      messages = nextPage == null ? null : nextPage.buildRequest().get();
+    }
+
+    // Each download is parsed on its own thread as soon as it arrives, while the others are in flight
+    Map<LocalDate, CompletableFuture<Map<String, Double>>> downloads = new TreeMap<>();
+    for (Map.Entry<LocalDate, Message> entry : messagesByDate.entrySet()) {
+      String messageId = entry.getValue().id;
+      downloads.put(entry.getKey(), CompletableFuture.supplyAsync(() -> {
+        try {
+          return downloadPricingData(graphClient, messageId);
+        } catch (Exception e) {
+          throw new CompletionException(e);
+        }
+      }, DOWNLOADS));
+    }
+
+    Map<LocalDate, Map<String, Double>> result = new TreeMap<>();
+    for (Map.Entry<LocalDate, CompletableFuture<Map<String, Double>>> download : downloads.entrySet()) {
+      LocalDate date = download.getKey();
       try {
-        System.out.println("Fetching daily data for date: " + startDate);
-        Map<String, Double> dailyData = getDailyPricingData(graphClient, since, until);
+        Map<String, Double> dailyData = download.getValue().join();
         if (!dailyData.isEmpty()) {
           result.put(date, dailyData);
           System.out.println("Found data for " + date + ": " + dailyData);
         }
-      } catch (Exception e) {
-        System.err.println("Error processing date " + date + ": " + e.getMessage());
+      } catch (CompletionException e) {
+        System.err.println("Error processing date " + date + ": " + e.getCause().getMessage());
       }
     }
-
     return result;
   }
 
-  private static Map<String, Double> getDailyPricingData(GraphServiceClient<?> graphClient,
-      OffsetDateTime since,
-      OffsetDateTime until) throws Exception {
-    MessageCollectionPage messages = graphClient.users("automatedreports@rioenergy.com").messages()
-        .buildRequest()
-        .filter("receivedDateTime ge " + since.toString() + " and receivedDateTime lt " + until.toString())
-        .select("id,subject,receivedDateTime")
-        .get();
-
-    Message targetMessage = null;
-    for (Message message : messages.getCurrentPage()) {
-      System.out.println("checking email: " + message.subject);
-      if (message.subject != null && message.subject.toLowerCase().contains("pricing quote")) {
-        System.out.println("Found pricing quote email for date: " + since);
-        targetMessage = message;
-        break;
-      }
-    }
-
-    if (targetMessage == null) {
-      return Collections.emptyMap();
-    }
-
-    AttachmentCollectionPage attachments = graphClient.users("automatedreports@rioenergy.com")
-        .messages(targetMessage.id)
+  /**
+   * Lists the message's attachments and parses its spreadsheet. The list already carries each
+   * attachment's content, so the spreadsheet is only fetched again if it came back without it.
+   */
+  private static Map<String, Double> downloadPricingData(GraphServiceClient<?> graphClient, String messageId)
+      throws Exception {
+    AttachmentCollectionPage attachments = graphClient.users(QUOTE_MAILBOX)
+        .messages(messageId)
         .attachments()
         .buildRequest()
         .get();
@@ -147,21 +191,41 @@ public class GCSpreadUpdater {
       throw new Exception("No Excel attachment found in the email.");
     }
 
-    Attachment attachment = graphClient.users("automatedreports@rioenergy.com")
-        .messages(targetMessage.id)
-        .attachments(excelAttachment.id)
+    byte[] content = contentOf(graphClient, messageId, excelAttachment);
+    LocalDate attachmentDate = getAttachmentDate(excelAttachment.name);
+    System.out.println("entering parseExcelData for sheet from " + attachmentDate);
+    return parseExcelData(new ByteArrayInputStream(content), attachmentDate);
+  }
+
+  private static byte[] contentOf(GraphServiceClient<?> graphClient, String messageId, FileAttachment attachment) {
+    if (attachment.contentBytes != null) {
+      return attachment.contentBytes;
+    }
+    FileAttachment downloaded = (FileAttachment) graphClient.users(QUOTE_MAILBOX)
+        .messages(messageId)
+        .attachments(attachment.id)
         .buildRequest()
         .get();
+    return downloaded.contentBytes;
+  }
 
-    if (attachment instanceof FileAttachment) {
-      System.out.println("found excel sheet");
-      byte[] content = ((FileAttachment) attachment).contentBytes;
-      LocalDate attachmentDate = getAttachmentDate(attachment.name);
-      System.out.println("entering parseExcelData for sheet from " + attachmentDate);
-      return parseExcelData(new ByteArrayInputStream(content), attachmentDate);
+  /**
+   * Virtual threads when the JVM has them (Java 21+), daemon platform threads otherwise. Looked up
+   * reflectively because the project still compiles for Java 17.
+   */
+  private static ThreadFactory downloadThreadFactory() {
+    try {
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "quote-download-", 0L);
+      return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+    } catch (ReflectiveOperationException e) {
+      return runnable -> {
+        Thread thread = new Thread(runnable, "quote-download");
+        thread.setDaemon(true);
+        return thread;
+      };
     }
-
-    return Collections.emptyMap();
   }
 
   public static Map<String, Double> getPricingDataForDate(GraphServiceClient<?> graphClient,
@@ -173,7 +237,7 @@ public class GCSpreadUpdater {
     System.out.println("searching for messages from " + startDate + " to " + endDate);
 
     // Search messages from the past 10 days
-    MessageCollectionPage messages = graphClient.users("automatedreports@rioenergy.com").messages()
+    MessageCollectionPage messages = graphClient.users(QUOTE_MAILBOX).messages()
         .buildRequest()
         .filter("receivedDateTime ge " + startDate.toString() +
             " and receivedDateTime le " + endDate.toString())
@@ -212,7 +276,7 @@ public class GCSpreadUpdater {
 
     // Get all attachments
     System.out.println("Getting all attachments from email");
-    AttachmentCollectionPage attachments = graphClient.users("automatedreports@rioenergy.com")
+    AttachmentCollectionPage attachments = graphClient.users(QUOTE_MAILBOX)
         .messages(message.id)
         .attachments()
         .buildRequest()
@@ -233,14 +297,7 @@ public class GCSpreadUpdater {
         System.out.println("Found correct excel attachment, downloading attachment");
 
         // Download the attachment
-        FileAttachment excelAttachment = (FileAttachment) graphClient
-            .users("automatedreports@rioenergy.com")
-            .messages(message.id)
-            .attachments(attachment.id)
-            .buildRequest()
-            .get();
-
-        byte[] content = excelAttachment.contentBytes;
+        byte[] content = contentOf(graphClient, message.id, (FileAttachment) attachment);
 
         System.out.println("Parsing data");
 
@@ -284,77 +341,14 @@ public class GCSpreadUpdater {
   }
 
   private static Map<String, Double> parseExcelData(InputStream excelStream, LocalDate attachmentDate) throws Exception {
-
-    Map<String, Double> result = new HashMap<>();
-    try (XSSFWorkbook workbook = new XSSFWorkbook(excelStream)) {
-      Sheet sheet = workbook.getSheetAt(0);
-
-      Map<String, String> headerMapping = Map.of(
-          "Platts Gasoline CBOB 87 USGC Houston Prompt Pipeline", "A",
-          "Platts Gasoline CBOB 93 USGC Houston Prompt Pipeline", "D",
-          "Platts Gasoline CBOB Chicago Buckeye Complex", "ChiCBOB",
-          "Platts Gasoline Prem Unleaded 91 Chicago Pipe", "Chi91",
-          "Platts Gasoline RBOB 83.7 USGC Houston prompt pipeline", "F",
-          "Platts Gasoline RBOB 91.4 USGC Houston Prompt Pipeline", "H",
-          "Platts Gasoline RBOB Chicago Buckeye Complex", "ChiRBOB",
-          "Platts Gasoline Unl 87 USGC Prompt Pipeline", "M",
-          "Platts Gasoline Unl 93 USGC Prompt Pipeline", "GC93",
-          "Platts Naphtha Cargo FOB US Gulf Coast", "Nap"
-      );
-
-      Row headerRow = sheet.getRow(0);
-      if (headerRow == null) {
-        throw new RuntimeException("Header row (row 0) is null");
-      }
-
-      // NEW: Data is always on the second row (row index 1)
-      Row dataRow = sheet.getRow(2);
-      if (dataRow == null) {
-        throw new RuntimeException("Data row (row 1) is null - data should be on the second row");
-      }
-
-      System.out.println("Processing data from row 1 (second row)");
-
-      // Log header and data values for debugging
-      for (int i = 0; i < headerRow.getLastCellNum(); i++) {
-        Cell headerCell = headerRow.getCell(i);
-        Cell dataCell = dataRow.getCell(i);
-
-        if (headerCell != null) {
-          String header = headerCell.getStringCellValue().trim();
-          System.out.printf("Column %d: Header='%s'", i, header);
-
-          if (dataCell != null) {
-            if (dataCell.getCellType() == CellType.NUMERIC) {
-              System.out.printf(", Value=%.4f%n", dataCell.getNumericCellValue());
-            } else if (dataCell.getCellType() == CellType.STRING) {
-              System.out.printf(", Value='%s'%n", dataCell.getStringCellValue());
-            } else {
-              System.out.printf(", CellType=%s%n", dataCell.getCellType().toString());
-            }
-          } else {
-            System.out.println(", Value=null");
-          }
-
-          // Check if this header is in our mapping
-          if (headerMapping.containsKey(header)) {
-            if (dataCell != null && dataCell.getCellType() == CellType.NUMERIC) {
-              double value = dataCell.getNumericCellValue();
-              result.put(headerMapping.get(header), value * 100);
-              System.out.printf("  -> Mapped to %s: %.4f%n", headerMapping.get(header), value * 100);
-            } else {
-              System.out.printf("  -> Header found but data cell is not numeric or is null: %s%n", header);
-            }
-          }
-        }
-      }
-
+    try {
+      // Streams the sheet instead of loading the workbook, so many quotes can be parsed at once
+      System.out.println("Processing data from row 2 of sheet from " + attachmentDate);
+      return PricingQuoteReader.read(excelStream, HEADER_MAPPING);
     } catch (Exception e) {
       System.err.printf("Failed to parse Excel data: %s%n", e.getMessage());
       throw e;
     }
-
-    return result;
   }
 
   // Helper method to find row by date (kept for backward compatibility)
@@ -1,4 +1,6 @@
 package GCSpreads;
+import Utilities.Freshness;
+import Utilities.SpreadExpression;
 import java.io.*;
 import java.nio.file.*;
 import java.time.LocalDate;
@@ -9,68 +11,181 @@ public class GCcsvupdater {
 
   private static final String BASE_PATH = "data/spreads/";
 
+  // Series written alongside the quoted grades, computed from the quoted prices
+  private static final Map<String, String> DERIVED = Map.of(
+      "Chi91-GC93", "Chi91 - GC93 - 24.319",
+      "ChiRBOB-ChiCBOB", "ChiRBOB - ChiCBOB"
+  );
+
+  // Quoted or derived grade -> file under BASE_PATH
+  private static final Map<String, String> FILE_MAP = Map.of(
+      "A", "GulfCoast/A.csv",
+      "D", "GulfCoast/D.csv",
+      "F", "GulfCoast/F.csv",
+      "H", "GulfCoast/H.csv",
+      "M", "GulfCoast/M.csv",
+      "Chi91-GC93", "91Chi.csv",
+      "ChiRBOB-ChiCBOB", "ChiCBOB.csv",
+      "Nap", "GulfCoast/Nap.csv"
+  );
+
   public static void updateSpreadCSVs(Map<String, Double> pricingData, LocalDate emailReceivedDate) throws IOException {
-    System.out.println("Entered updateSpreadCSVs");
-    LocalDate targetDate = emailReceivedDate.minusDays(1);
-    String dateKey = targetDate.format(DateTimeFormatter.ofPattern("M/d"));
-    System.out.println("Data date: " + dateKey);
-    int currentYear = LocalDate.now().minusDays(1).getYear();
-    String yearColumn = Integer.toString(currentYear);
+    updateSpreadCSVs(Map.of(emailReceivedDate, pricingData));
+  }
 
-    Map<String, String> fileMap = Map.of(
-        "A", "GulfCoast/A.csv",
-        "D", "GulfCoast/D.csv",
-        "F", "GulfCoast/F.csv",
-        "H", "GulfCoast/H.csv",
-        "M", "GulfCoast/M.csv",
-        "Chi91-GC93", "91Chi.csv",
-        "ChiRBOB-ChiCBOB", "ChiCBOB.csv",
-        "Nap", "GulfCoast/Nap.csv"
-    );
+  /**
+   * Writes several days of pricing quotes at once. Each quote is for the day before its email was
+   * received and goes in that year's column. All days are merged into each file in memory and every
+   * file is written to a temp file first; the temp files only replace the originals once all of them
+   * have been written, so a failure while reading or writing leaves every file as it was. Should a
+   * rename itself fail, the files renamed before it keep their new contents. The cached grades and
+   * the freshness manifest are only updated after the renames, and a failure there for one file is
+   * logged without stopping the others.
+   *
+   * @param pricingByReceivedDate quotes keyed by the date their email was received; a later day
+   *     overwrites an earlier one for the same cell
+   * @return milliseconds spent reading, merging and writing each file, by file path
+   */
+  public static Map<String, Long> updateSpreadCSVs(Map<LocalDate, Map<String, Double>> pricingByReceivedDate)
+      throws IOException {
+    System.out.println("Entered updateSpreadCSVs for " + pricingByReceivedDate.size() + " days");
 
-    // Compute derived values
-    System.out.println("Computing chicago values");
-    double chi91 = pricingData.getOrDefault("Chi91", 0.0);
-    double gc93 = pricingData.getOrDefault("GC93", 0.0);
-    double chiRBOB = pricingData.getOrDefault("ChiRBOB", 0.0);
-    double chiCBOB = pricingData.getOrDefault("ChiCBOB", 0.0);
+    // file path -> date key -> year column -> value
+    Map<String, Map<String, Map<String, Double>>> updates = new TreeMap<>();
+    // file path -> the latest day written to it
+    Map<String, LocalDate> lastDates = new HashMap<>();
+    for (Map.Entry<LocalDate, Map<String, Double>> day : new TreeMap<>(pricingByReceivedDate).entrySet()) {
+      LocalDate targetDate = day.getKey().minusDays(1);
+      String dateKey = targetDate.format(DateTimeFormatter.ofPattern("M/d"));
+      String yearColumn = Integer.toString(targetDate.getYear());
+      System.out.println("Data date: " + targetDate);
 
-    pricingData.put("Chi91-GC93", chi91 - gc93 - 24.319);
-    pricingData.put("ChiRBOB-ChiCBOB", chiRBOB - chiCBOB);
+      Map<String, Double> pricingData = new HashMap<>(day.getValue());
+      // Compute derived values
+      for (Map.Entry<String, String> derived : DERIVED.entrySet()) {
+        SpreadExpression expression = SpreadExpression.compile(derived.getValue());
+        // A price missing from the email counts as zero
+        double[] value = expression.evaluate(name -> new double[]{pricingData.getOrDefault(name, 0.0)}, 1);
+        pricingData.put(derived.getKey(), value[0]);
+      }
+
+      for (Map.Entry<String, String> entry : FILE_MAP.entrySet()) {
+        Double value = pricingData.get(entry.getKey());
+        if (value != null) {
+          updates.computeIfAbsent(BASE_PATH + entry.getValue(), f -> new LinkedHashMap<>())
+              .computeIfAbsent(dateKey, d -> new LinkedHashMap<>())
+              .put(yearColumn, value);
+          lastDates.put(BASE_PATH + entry.getValue(), targetDate);
+        }
+      }
+    }
+
+    Map<String, Long> timings = new TreeMap<>();
+    Map<Path, Path> written = new LinkedHashMap<>();
+    Map<Path, Integer> rows = new HashMap<>();
+    try {
+      for (Map.Entry<String, Map<String, Map<String, Double>>> file : updates.entrySet()) {
+        long start = System.currentTimeMillis();
+        Path path = Paths.get(file.getKey());
+        List<String> lines = merge(path, file.getValue());
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        written.put(path, temp);
+        Files.write(temp, lines);
+        rows.put(path, lines.size() - 1);
+        timings.put(file.getKey(), System.currentTimeMillis() - start);
+      }
+    } catch (IOException | RuntimeException e) {
+      for (Path temp : written.values()) {
+        Files.deleteIfExists(temp);
+      }
+      throw e;
+    }
 
-    for (Map.Entry<String, String> entry : fileMap.entrySet()) {
-      String key = entry.getKey();
-      String filePath = BASE_PATH + entry.getValue();
-      System.out.println("Processing update for grade: " + key);
-      if (pricingData.containsKey(key)) {
-        System.out.println("Updating " + filePath);
-        System.out.println("UpdateCsvInputs: dateKey = " + dateKey + " yearColumn = " + yearColumn + " pricing data: " + pricingData.get(key));
-        updateCSV(filePath, dateKey, yearColumn, pricingData.get(key));
+    List<Path> moved = new ArrayList<>();
+    try {
+      for (Map.Entry<Path, Path> file : written.entrySet()) {
+        long start = System.currentTimeMillis();
+        Files.move(file.getValue(), file.getKey(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        moved.add(file.getKey());
+        timings.merge(file.getKey().toString(), System.currentTimeMillis() - start, Long::sum);
       }
+    } catch (IOException | RuntimeException e) {
+      for (Map.Entry<Path, Path> file : written.entrySet()) {
+        if (!moved.contains(file.getKey())) {
+          Files.deleteIfExists(file.getValue());
+        }
+      }
+      System.err.println("Replaced " + moved + " before failing: " + e.getMessage());
+      reloadAll(moved, lastDates, rows, timings);
+      throw e;
+    }
+    reloadAll(moved, lastDates, rows, timings);
+
+    for (Map.Entry<String, Long> timing : timings.entrySet()) {
+      System.out.println("Updated " + timing.getKey() + " in " + timing.getValue() + " ms");
     }
+    return timings;
   }
 
-  private static void updateCSV(String filePath, String dateKey, String yearColumn, double value) throws IOException {
-    List<String> lines = Files.readAllLines(Paths.get(filePath));
-    List<String> updatedLines = new ArrayList<>();
-    String[] headers = lines.get(0).split(",");
-    int yearIndex = Arrays.asList(headers).indexOf(yearColumn);
+  /**
+   * Reloads the cached grade and records the new contents in the freshness manifest for each
+   * replaced file. A failure for one file is logged and the rest still go ahead.
+   */
+  private static void reloadAll(List<Path> moved, Map<String, LocalDate> lastDates, Map<Path, Integer> rows,
+      Map<String, Long> timings) {
+    for (Path path : moved) {
+      long start = System.currentTimeMillis();
+      String fileName = path.getFileName().toString();
+      try {
+        GradeCube.reload(fileName.substring(0, fileName.length() - ".csv".length()));
+      } catch (IOException | RuntimeException e) {
+        System.err.println("Could not reload " + fileName + ", cached values are stale: " + e.getMessage());
+      }
+      try {
+        Freshness.recordAdded(path.toString(), lastDates.get(path.toString()), rows.get(path));
+      } catch (RuntimeException e) {
+        System.err.println("Could not record freshness of " + path + ": " + e.getMessage());
+      }
+      timings.merge(path.toString(), System.currentTimeMillis() - start, Long::sum);
+    }
+  }
 
-    if (yearIndex == -1) {
-      throw new IOException("Year column " + yearColumn + " not found in " + filePath);
+  /**
+   * Reads the file once and sets every given cell.
+   *
+   * @param cells date key -> year column -> value
+   * @return the updated lines, header first
+   */
+  private static List<String> merge(Path path, Map<String, Map<String, Double>> cells) throws IOException {
+    List<String> lines = Files.readAllLines(path);
+    List<String> headers = Arrays.asList(lines.get(0).split(","));
+    for (Map<String, Double> row : cells.values()) {
+      for (String yearColumn : row.keySet()) {
+        if (!headers.contains(yearColumn)) {
+          throw new IOException("Year column " + yearColumn + " not found in " + path);
+        }
+      }
     }
+    Set<String> found = new HashSet<>();
 
+    List<String> updatedLines = new ArrayList<>(lines.size());
     updatedLines.add(lines.get(0)); // header
-    System.out.println("reading all lines");
     for (int i = 1; i < lines.size(); i++) {
       String[] parts = lines.get(i).split(",", -1);
-      if (parts[0].equals(dateKey)) {
-        System.out.println("Found correct row, placing in value");
-        parts[yearIndex] = String.format("%.2f", value);
+      Map<String, Double> row = cells.get(parts[0]);
+      if (row != null) {
+        for (Map.Entry<String, Double> cell : row.entrySet()) {
+          parts[headers.indexOf(cell.getKey())] = String.format("%.2f", cell.getValue());
+        }
+        found.add(parts[0]);
       }
       updatedLines.add(String.join(",", parts));
     }
-
-    Files.write(Paths.get(filePath), updatedLines);
+    for (String dateKey : cells.keySet()) {
+      if (!found.contains(dateKey)) {
+        System.out.println("No row for " + dateKey + " in " + path + ", skipping");
+      }
+    }
+    return updatedLines;
   }
 }
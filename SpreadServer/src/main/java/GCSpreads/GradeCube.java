@@ -0,0 +1,179 @@
+package GCSpreads;
+
+import Utilities.Parser.CsvTokenizer;
+import Utilities.SeasonalDay;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Every Gulf Coast grade and Chicago spread file held in memory as one grade x year x day cube of
+ * doubles, so the difference between any two grades is an array subtraction. Days are
+ * {@link SeasonalDay} indexes and missing values are NaN; a year column a file does not have is
+ * null.
+ *
+ * <p>The cube is read on first use and a grade is re-read after {@link GCcsvupdater} writes its
+ * file. Updates build a new cube and swap it in, so readers never see a half-read grade.
+ */
+public class GradeCube {
+  public static final List<String> GRADES = List.of("A", "D", "F", "H", "M", "Nap", "91Chi", "ChiCBOB");
+  private static final String[] FILES = {
+      "GulfCoast/A.csv", "GulfCoast/D.csv", "GulfCoast/F.csv", "GulfCoast/H.csv", "GulfCoast/M.csv",
+      "GulfCoast/Nap.csv", "91Chi.csv", "ChiCBOB.csv"
+  };
+  private static final String BASE_PATH = "data/spreads/";
+
+  private static volatile Cube cube;
+
+  private static final class Cube {
+    final int firstYear;
+    // [grade][year - firstYear][day]
+    final double[][][] values;
+
+    Cube(int firstYear, double[][][] values) {
+      this.firstYear = firstYear;
+      this.values = values;
+    }
+  }
+
+  /**
+   * @return the grade's series for the year indexed by {@link SeasonalDay}, or null if its file
+   *     has no column for that year. The array is shared and must not be modified.
+   */
+  public static double[] get(String grade, int year) throws IOException {
+    Cube current = load();
+    double[][] years = current.values[gradeIndex(grade)];
+    int index = year - current.firstYear;
+    return index < 0 || index >= years.length ? null : years[index];
+  }
+
+  /**
+   * @return grade1 minus grade2 on every day of the year, NaN where either is missing, or null if
+   *     either file has no column for that year
+   */
+  public static double[] difference(String grade1, String grade2, int year) throws IOException {
+    double[] first = get(grade1, year);
+    double[] second = get(grade2, year);
+    if (first == null || second == null) {
+      return null;
+    }
+    double[] difference = new double[SeasonalDay.DAYS];
+    for (int day = 0; day < difference.length; day++) {
+      difference[day] = first[day] - second[day];
+    }
+    return difference;
+  }
+
+  /**
+   * Re-reads one grade's file after it has been written. Does nothing if the cube has not been
+   * loaded yet, since the first request reads every file anyway.
+   */
+  public static synchronized void reload(String grade) throws IOException {
+    Cube current = cube;
+    if (current == null) {
+      return;
+    }
+    int g = gradeIndex(grade);
+    double[][][] values = current.values.clone();
+    values[g] = readFile(FILES[g], current.firstYear);
+    cube = new Cube(current.firstYear, values);
+    System.out.println("Reloaded grade " + grade);
+  }
+
+  private static Cube load() throws IOException {
+    Cube current = cube;
+    if (current != null) {
+      return current;
+    }
+    synchronized (GradeCube.class) {
+      if (cube == null) {
+        long start = System.currentTimeMillis();
+        int firstYear = Integer.MAX_VALUE;
+        for (String file : FILES) {
+          firstYear = Math.min(firstYear, firstYearOf(file));
+        }
+        double[][][] values = new double[FILES.length][][];
+        for (int g = 0; g < FILES.length; g++) {
+          values[g] = readFile(FILES[g], firstYear);
+        }
+        cube = new Cube(firstYear, values);
+        System.out.println("Loaded grade cube in " + (System.currentTimeMillis() - start) + " ms");
+      }
+      return cube;
+    }
+  }
+
+  private static int gradeIndex(String grade) {
+    int index = GRADES.indexOf(grade);
+    if (index < 0) {
+      throw new IllegalArgumentException("Unknown grade: " + grade);
+    }
+    return index;
+  }
+
+  private static int firstYearOf(String file) throws IOException {
+    int firstYear = Integer.MAX_VALUE;
+    try (CsvTokenizer csv = new CsvTokenizer(new FileReader(BASE_PATH + file))) {
+      if (csv.nextRow()) {
+        for (int i = 1; i < csv.fieldCount(); i++) {
+          firstYear = Math.min(firstYear, yearOf(csv.getString(i)));
+        }
+      }
+    }
+    return firstYear;
+  }
+
+  /**
+   * @return the file's series indexed by [year - firstYear][SeasonalDay], null for years it has no
+   *     column for
+   */
+  private static double[][] readFile(String file, int firstYear) throws IOException {
+    try (CsvTokenizer csv = new CsvTokenizer(new FileReader(BASE_PATH + file))) {
+      if (!csv.nextRow()) {
+        return new double[0][];
+      }
+      // Column i of the file goes to years[yearIndex[i]]
+      int[] yearIndex = new int[csv.fieldCount()];
+      int lastYear = firstYear - 1;
+      for (int i = 1; i < csv.fieldCount(); i++) {
+        int year = yearOf(csv.getString(i));
+        if (year < firstYear) {
+          throw new IOException("Year " + year + " in " + file + " is before the cube's first year " + firstYear);
+        }
+        yearIndex[i] = year - firstYear;
+        lastYear = Math.max(lastYear, year);
+      }
+      double[][] years = new double[lastYear - firstYear + 1][];
+      for (int i = 1; i < yearIndex.length; i++) {
+        years[yearIndex[i]] = new double[SeasonalDay.DAYS];
+        Arrays.fill(years[yearIndex[i]], Double.NaN);
+      }
+
+      while (csv.nextRow()) {
+        int day = SeasonalDay.parse(csv.field(0));
+        if (day < 0) continue;
+
+        for (int i = 1; i < csv.fieldCount() && i < yearIndex.length; i++) {
+          try {
+            double value = csv.getDouble(i);
+            if (!Double.isNaN(value)) {
+              years[yearIndex[i]][day] = value;
+            }
+          } catch (NumberFormatException e) {
+            System.err.println("Skipping invalid number in " + file + " at " + csv.getString(0));
+          }
+        }
+      }
+      return years;
+    }
+  }
+
+  private static int yearOf(String header) throws IOException {
+    try {
+      return Integer.parseInt(header.trim());
+    } catch (NumberFormatException e) {
+      throw new IOException("Expected a year column, found '" + header + "'");
+    }
+  }
+}
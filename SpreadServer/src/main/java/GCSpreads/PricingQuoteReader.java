@@ -0,0 +1,189 @@
+package GCSpreads;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import javax.xml.parsers.ParserConfigurationException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Reads the prices out of a pricing quote spreadsheet without loading it as a workbook. The first
+ * sheet's XML is streamed: row 0 holds the instrument names, row 2 their prices, and parsing stops
+ * as soon as row 2 ends.
+ */
+class PricingQuoteReader {
+  private static final int HEADER_ROW = 0;
+  private static final int DATA_ROW = 2;
+
+  private PricingQuoteReader() {}
+
+  /**
+   * @param headerMapping instrument name in row 0 -> grade code
+   * @return grade code -> price in cents, for every mapped column whose row 2 cell is a number
+   */
+  static Map<String, Double> read(InputStream excelStream, Map<String, String> headerMapping) throws IOException {
+    try (OPCPackage pkg = OPCPackage.open(excelStream)) {
+      XSSFReader reader = new XSSFReader(pkg);
+      ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg, false);
+      Iterator<InputStream> sheets = reader.getSheetsData();
+      if (!sheets.hasNext()) {
+        throw new IOException("Pricing quote has no sheets");
+      }
+
+      QuoteHandler handler = new QuoteHandler(strings, headerMapping);
+      try (InputStream sheet = sheets.next()) {
+        XMLReader parser = XMLHelper.newXMLReader();
+        parser.setContentHandler(handler);
+        parser.parse(new InputSource(sheet));
+      } catch (StopParsing done) {
+        // Row 2 has been read
+      }
+
+      if (!handler.sawHeader) {
+        throw new IOException("Header row (row 0) is missing");
+      }
+      if (!handler.sawData) {
+        throw new IOException("Data row (row 2) is missing");
+      }
+      return handler.result;
+    } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+      throw new IOException("Failed to read pricing quote: " + e.getMessage(), e);
+    }
+  }
+
+  private static final class StopParsing extends SAXException {
+    private static final long serialVersionUID = 1L;
+
+    StopParsing() {
+      super("done", null);
+    }
+  }
+
+  /**
+   * Collects the header names of row 0 and the numeric cells of row 2. Like the workbook reader it
+   * replaces, it only takes plain numbers: formula cells are skipped.
+   */
+  private static final class QuoteHandler extends DefaultHandler {
+    private final ReadOnlySharedStringsTable strings;
+    private final Map<String, String> headerMapping;
+    private final Map<Integer, String> codesByColumn = new HashMap<>();
+    final Map<String, Double> result = new HashMap<>();
+    boolean sawHeader;
+    boolean sawData;
+
+    private int row = -1;
+    private int column;
+    private String type;
+    private boolean formula;
+    private boolean inValue;
+    private final StringBuilder value = new StringBuilder();
+
+    QuoteHandler(ReadOnlySharedStringsTable strings, Map<String, String> headerMapping) {
+      this.strings = strings;
+      this.headerMapping = headerMapping;
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+      switch (localName) {
+        case "row":
+          String r = attributes.getValue("r");
+          row = r != null ? Integer.parseInt(r) - 1 : row + 1;
+          if (row > DATA_ROW) {
+            throw new StopParsing();
+          }
+          column = -1;
+          break;
+        case "c":
+          String ref = attributes.getValue("r");
+          column = ref != null ? new CellReference(ref).getCol() : column + 1;
+          type = attributes.getValue("t");
+          formula = false;
+          value.setLength(0);
+          break;
+        case "f":
+          formula = true;
+          break;
+        case "v":
+        case "t":
+          inValue = true;
+          break;
+        default:
+      }
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+      if (inValue) {
+        value.append(ch, start, length);
+      }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+      switch (localName) {
+        case "v":
+        case "t":
+          inValue = false;
+          break;
+        case "c":
+          if (row == HEADER_ROW) {
+            header();
+          } else if (row == DATA_ROW) {
+            data();
+          }
+          break;
+        case "row":
+          if (row == HEADER_ROW) {
+            sawHeader = true;
+          } else if (row == DATA_ROW) {
+            sawData = true;
+            throw new StopParsing();
+          }
+          break;
+        default:
+      }
+    }
+
+    private void header() {
+      String text;
+      if ("s".equals(type)) {
+        text = strings.getItemAt(Integer.parseInt(value.toString().trim())).getString();
+      } else if ("inlineStr".equals(type) || "str".equals(type)) {
+        text = value.toString();
+      } else {
+        return;
+      }
+      String code = headerMapping.get(text.trim());
+      if (code != null) {
+        codesByColumn.put(column, code);
+      }
+    }
+
+    private void data() {
+      String code = codesByColumn.get(column);
+      if (code == null) {
+        return;
+      }
+      if (formula || (type != null && !"n".equals(type)) || value.length() == 0) {
+        System.out.printf("  -> Header found but data cell is not numeric or is null: %s%n", code);
+        return;
+      }
+      double price = Double.parseDouble(value.toString().trim()) * 100;
+      result.put(code, price);
+      System.out.printf("  -> Mapped to %s: %.4f%n", code, price);
+    }
+  }
+}
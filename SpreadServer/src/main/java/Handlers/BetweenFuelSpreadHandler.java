@@ -1,98 +1,117 @@
 package Handlers;
 
-import com.squareup.moshi.JsonAdapter;
-import com.squareup.moshi.Moshi;
-import com.squareup.moshi.Types;
+import Utilities.Parser.CsvTokenizer;
+import Utilities.SeasonalAggregator;
+import Utilities.SeasonalDay;
+import Utilities.SeasonalJson;
+import Utilities.SeasonalStats;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDate;
+import java.util.concurrent.ConcurrentHashMap;
 import spark.Request;
 import spark.Response;
 import spark.Route;
 
-import java.time.MonthDay;
-import java.time.format.DateTimeFormatter;
-
-import java.io.BufferedReader;
 import java.io.FileReader;
-import java.lang.reflect.Type;
 import java.util.*;
 
+/**
+ * Serves a between-fuel spread file (data/spreads/{type}.csv) with its 5YEARAVG. The parsed series
+ * and the JSON written from them are kept per file and reused until the file's size or
+ * modification time changes or a new year starts, so repeat requests do no parsing or writing.
+ */
 public class BetweenFuelSpreadHandler implements Route {
+  private static final Map<String, Spreads> CACHE = new ConcurrentHashMap<>();
+
+  /** One parse of a file, stamped with what it was computed from. */
+  private static final class Spreads {
+    final long size;
+    final long modified;
+    final int currentYear;
+    final Map<String, float[]> yearMap;
+    final byte[] json;
+
+    Spreads(long size, long modified, int currentYear, Map<String, float[]> yearMap, byte[] json) {
+      this.size = size;
+      this.modified = modified;
+      this.currentYear = currentYear;
+      this.yearMap = yearMap;
+      this.json = json;
+    }
+  }
 
   @Override
   public Object handle(Request request, Response response) throws Exception {
     String type = request.queryParams("type");
     System.out.println(type);
-    int currentYear = LocalDate.now().getYear();
-    String secondYear = Integer.toString(currentYear - 1);
-    String firstYear = Integer.toString(currentYear - 5);
     String filePath = "data/spreads/" + type + ".csv";
     System.out.println(filePath);
-    Map<String, Map<String, Float>> yearMap = new LinkedHashMap<>();
-    Map<String, List<Float>> avgCollector = new HashMap<>();
-
-    try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-      String[] headers = reader.readLine().split(",");
-      List<String> years = Arrays.asList(headers).subList(1, headers.length);
 
-      for (String year : years) {
-        yearMap.put(year, new LinkedHashMap<>());
+    try {
+      Path path = Paths.get(filePath);
+      long size = Files.size(path);
+      long modified = Files.getLastModifiedTime(path).toMillis();
+      int currentYear = LocalDate.now().getYear();
+
+      Spreads spreads = CACHE.get(filePath);
+      if (spreads == null || spreads.size != size || spreads.modified != modified
+          || spreads.currentYear != currentYear) {
+        spreads = load(filePath, size, modified, currentYear);
+        CACHE.put(filePath, spreads);
       }
 
-      String line;
-      while ((line = reader.readLine()) != null) {
-        String[] parts = line.split(",");
-        String date = parts[0];
-
-        for (int i = 1; i < parts.length; i++) {
-          String year = headers[i];
-          String valueStr = parts[i].trim();
-          if (!valueStr.isEmpty()) {
-            try {
-              float value = Float.parseFloat(valueStr);
-              yearMap.get(year).put(date, value);
-
-              if (year.compareTo(firstYear) >= 0 && year.compareTo(secondYear) <= 0) {
-                avgCollector.computeIfAbsent(date, k -> new ArrayList<>()).add(value);
-              }
-            } catch (NumberFormatException ignored) {}
-          }
-        }
-      }
+      response.type("application/json");
+      return spreads.json;
+
+    } catch (Exception e) {
+      response.status(500);
+      return "{\"error\":\"" + e.getMessage() + "\"}";
+    }
+  }
 
-// Compute 5YEARAVG in chronological order
-      Map<MonthDay, Float> sortedAvgMap = new TreeMap<>();
-      DateTimeFormatter formatter = DateTimeFormatter.ofPattern("M/d");
-
-      for (Map.Entry<String, List<Float>> entry : avgCollector.entrySet()) {
-        List<Float> values = entry.getValue();
-        if (!values.isEmpty()) {
-          float sum = 0;
-          for (float v : values) sum += v;
-          MonthDay md = MonthDay.parse(entry.getKey(), formatter);
-          sortedAvgMap.put(md, sum / values.size());
+  private static Spreads load(String filePath, long size, long modified, int currentYear) throws IOException {
+    String secondYear = Integer.toString(currentYear - 1);
+    String firstYear = Integer.toString(currentYear - 5);
+    Map<String, float[]> yearMap = new LinkedHashMap<>();
+    List<float[]> averageYears = new ArrayList<>();
+
+    try (CsvTokenizer csv = new CsvTokenizer(new FileReader(filePath))) {
+      csv.nextRow();
+      float[][] columns = new float[csv.fieldCount()][];
+      for (int i = 1; i < csv.fieldCount(); i++) {
+        String year = csv.getString(i);
+        columns[i] = SeasonalAggregator.emptySeries();
+        yearMap.put(year, columns[i]);
+        if (year.compareTo(firstYear) >= 0 && year.compareTo(secondYear) <= 0) {
+          averageYears.add(columns[i]);
         }
       }
 
-// Convert back to LinkedHashMap with original date strings
-      Map<String, Float> avgMap = new LinkedHashMap<>();
-      for (Map.Entry<MonthDay, Float> entry : sortedAvgMap.entrySet()) {
-        avgMap.put(entry.getKey().format(formatter), entry.getValue());
+      while (csv.nextRow()) {
+        int day = SeasonalDay.parse(csv.field(0));
+        if (day < 0) continue;
+
+        for (int i = 1; i < csv.fieldCount() && i < columns.length; i++) {
+          try {
+            float value = csv.getFloat(i);
+            if (!Float.isNaN(value)) {
+              columns[i][day] = value;
+            }
+          } catch (NumberFormatException ignored) {}
+        }
       }
-      yearMap.put("5YEARAVG", avgMap);
-
-
-      // Serialize to JSON
-      Moshi moshi = new Moshi.Builder().build();
-      Type innerMapType = Types.newParameterizedType(Map.class, String.class, Float.class);
-      Type outerMapType = Types.newParameterizedType(Map.class, String.class, innerMapType);
-      JsonAdapter<Map<String, Map<String, Float>>> adapter = moshi.adapter(outerMapType);
+    }
 
-      response.type("application/json");
-      return adapter.toJson(yearMap);
+    // Compute 5YEARAVG over the five years before this one
+    SeasonalStats stats = new SeasonalAggregator().aggregate(averageYears);
+    yearMap.put("5YEARAVG", SeasonalAggregator.toFloats(stats.mean));
 
-    } catch (Exception e) {
-      response.status(500);
-      return "{\"error\":\"" + e.getMessage() + "\"}";
-    }
+    byte[] json = SeasonalJson.toJson(yearMap, SeasonalDay.Label.SHORT, 0).getBytes(StandardCharsets.UTF_8);
+    System.out.println("Parsed " + filePath + " into " + json.length + " bytes of JSON");
+    return new Spreads(size, modified, currentYear, Collections.unmodifiableMap(yearMap), json);
   }
 }
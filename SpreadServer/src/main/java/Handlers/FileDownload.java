@@ -0,0 +1,191 @@
+package Handlers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.eclipse.jetty.server.HttpOutput;
+import spark.Request;
+import spark.Response;
+
+/**
+ * Sends a file as a download straight from disk. The file is never read onto the heap: under Jetty
+ * the requested bytes are memory mapped and handed to the connector, otherwise they are copied with
+ * {@link FileChannel#transferTo}.
+ *
+ * <p>Responses carry an ETag made from the file's size and modification time and a Last-Modified
+ * date, and must be revalidated, so a client that already has the file gets a 304 with no body. A
+ * single byte range ("bytes=0-99", "bytes=100-", "bytes=-100") gets a 206 with just those bytes;
+ * anything else gets the whole file.
+ *
+ * <p>Files served this way must be replaced by renaming a new file over them, never rewritten in
+ * place, since an open download keeps reading the file it started with.
+ */
+final class FileDownload {
+
+  private FileDownload() {}
+
+  /**
+   * Writes the response for the file and returns what the route should return. Once the file has
+   * been sent the response is committed and Spark writes nothing more.
+   */
+  static Object send(Request request, Response response, Path path, String contentType, String filename)
+      throws IOException {
+    HttpServletRequest raw = request.raw();
+    HttpServletResponse out = response.raw();
+
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      long modified = Files.getLastModifiedTime(path).toMillis();
+      String etag = "\"" + Long.toHexString(size) + "-" + Long.toHexString(modified) + "\"";
+
+      response.header("ETag", etag);
+      out.setDateHeader("Last-Modified", modified);
+      response.header("Cache-Control", "no-cache");
+      response.header("Accept-Ranges", "bytes");
+
+      if (notModified(raw, etag, modified)) {
+        response.status(HttpServletResponse.SC_NOT_MODIFIED);
+        return "";
+      }
+
+      long start = 0;
+      long length = size;
+      String range = raw.getHeader("Range");
+      if (range != null && rangeApplies(raw, etag, modified)) {
+        long[] bounds = parseRange(range, size);
+        if (bounds == null) {
+          response.status(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+          response.header("Content-Range", "bytes */" + size);
+          return "";
+        }
+        if (bounds.length == 2) {
+          start = bounds[0];
+          length = bounds[1] - bounds[0] + 1;
+          response.status(HttpServletResponse.SC_PARTIAL_CONTENT);
+          response.header("Content-Range", "bytes " + bounds[0] + "-" + bounds[1] + "/" + size);
+        }
+      }
+
+      response.type(contentType);
+      response.header("Content-Disposition", "attachment; filename=" + filename);
+      out.setContentLengthLong(length);
+      if ("HEAD".equals(raw.getMethod()) || length == 0) {
+        out.flushBuffer();
+        return "";
+      }
+
+      OutputStream body = out.getOutputStream();
+      if (body instanceof HttpOutput) {
+        ((HttpOutput) body).sendContent(channel.map(FileChannel.MapMode.READ_ONLY, start, length));
+      } else {
+        WritableByteChannel target = Channels.newChannel(body);
+        long sent = 0;
+        while (sent < length) {
+          sent += channel.transferTo(start + sent, length - sent, target);
+        }
+        body.flush();
+      }
+      return "";
+    } catch (NoSuchFileException e) {
+      response.status(404);
+      return "{\"error\":\"File not found\"}";
+    }
+  }
+
+  /**
+   * If-None-Match wins over If-Modified-Since, as in RFC 7232.
+   */
+  private static boolean notModified(HttpServletRequest request, String etag, long modified) {
+    String ifNoneMatch = request.getHeader("If-None-Match");
+    if (ifNoneMatch != null) {
+      return matches(ifNoneMatch, etag);
+    }
+    long ifModifiedSince = dateHeader(request, "If-Modified-Since");
+    // Header dates only have whole seconds
+    return ifModifiedSince >= 0 && modified / 1000 <= ifModifiedSince / 1000;
+  }
+
+  /**
+   * A Range with an If-Range that no longer matches gets the whole file instead.
+   */
+  private static boolean rangeApplies(HttpServletRequest request, String etag, long modified) {
+    String ifRange = request.getHeader("If-Range");
+    if (ifRange == null) {
+      return true;
+    }
+    if (ifRange.trim().startsWith("\"") || ifRange.trim().startsWith("W/")) {
+      return ifRange.trim().equals(etag);
+    }
+    long date = dateHeader(request, "If-Range");
+    return date >= 0 && modified / 1000 == date / 1000;
+  }
+
+  /** Weak comparison over a list of tags, or "*". */
+  private static boolean matches(String header, String etag) {
+    for (String tag : header.split(",")) {
+      String candidate = tag.trim();
+      if (candidate.startsWith("W/")) {
+        candidate = candidate.substring(2);
+      }
+      if (candidate.equals("*") || candidate.equals(etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static long dateHeader(HttpServletRequest request, String name) {
+    try {
+      return request.getDateHeader(name);
+    } catch (IllegalArgumentException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * @return {first, last} for a single satisfiable range, an empty array if the header is not one
+   *     we serve as a range (so the whole file is sent), or null if the range is past the end
+   */
+  private static long[] parseRange(String header, long size) {
+    String value = header.trim();
+    if (!value.startsWith("bytes=") || value.contains(",")) {
+      return new long[0];
+    }
+    String spec = value.substring("bytes=".length()).trim();
+    int dash = spec.indexOf('-');
+    if (dash < 0) {
+      return new long[0];
+    }
+    try {
+      String first = spec.substring(0, dash).trim();
+      String last = spec.substring(dash + 1).trim();
+      if (first.isEmpty()) {
+        // The last n bytes
+        long suffix = Long.parseLong(last);
+        if (suffix <= 0 || size == 0) {
+          return null;
+        }
+        return new long[] {Math.max(0, size - suffix), size - 1};
+      }
+      long from = Long.parseLong(first);
+      long to = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+      if (from >= size) {
+        return null;
+      }
+      if (to < from) {
+        return new long[0];
+      }
+      return new long[] {from, to};
+    } catch (NumberFormatException e) {
+      return new long[0];
+    }
+  }
+}
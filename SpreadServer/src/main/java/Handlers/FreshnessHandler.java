@@ -0,0 +1,30 @@
+package Handlers;
+
+import Utilities.Freshness;
+import com.squareup.moshi.Moshi;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+/**
+ * Serves the freshness manifest: every dataset's last date, row count, version and when it was
+ * last written, or just one dataset's entry with ?dataset=data/newA.xlsx.
+ */
+public class FreshnessHandler implements Route {
+
+  @Override
+  public Object handle(Request request, Response response) {
+    response.type("application/json");
+    String name = request.queryParams("dataset");
+    if (name == null || name.isBlank()) {
+      return Freshness.json();
+    }
+
+    Freshness.Dataset dataset = Freshness.get(name);
+    if (dataset == null) {
+      response.status(404);
+      return "{\"error\":\"Unknown dataset\"}";
+    }
+    return new Moshi.Builder().build().adapter(Freshness.Dataset.class).toJson(dataset);
+  }
+}
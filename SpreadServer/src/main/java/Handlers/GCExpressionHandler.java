@@ -0,0 +1,38 @@
+package Handlers;
+
+import static GCSpreads.GCSpreadCalc.computeExpression;
+
+import Utilities.SeasonalDay;
+import Utilities.SeasonalJson;
+import com.squareup.moshi.JsonWriter;
+import java.util.Map;
+import okio.Buffer;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+/**
+ * Serves a spread built from several Gulf Coast and Chicago grades, e.g. expr=A-D-0.5*Nap, in the
+ * same shape as {@link GCSpreadHandler}.
+ */
+public class GCExpressionHandler implements Route {
+  public Object handle(Request request, Response response) throws Exception {
+    response.type("application/json");
+    try {
+      Map<String, float[]> returnmap = computeExpression(request.queryParams("expr"));
+      if (returnmap == null) {
+        return "null";
+      }
+      return SeasonalJson.toJson(returnmap, SeasonalDay.Label.SHORT, 0);
+
+    } catch (IllegalArgumentException e) {
+      response.status(400);
+      // The message can quote the expression, so it is escaped by the writer
+      Buffer buffer = new Buffer();
+      try (JsonWriter writer = JsonWriter.of(buffer)) {
+        writer.beginObject().name("error").value(e.getMessage()).endObject();
+      }
+      return buffer.readUtf8();
+    }
+  }
+}
@@ -31,9 +31,13 @@ public class GCUpdateHandler implements Route {
 
       if (!allPricingData.isEmpty()) {
         System.out.println("Updating CSVs with all missing data...");
-        for (Map.Entry<LocalDate, Map<String, Double>> entry : allPricingData.entrySet()) {
-          GCcsvupdater.updateSpreadCSVs(entry.getValue(), entry.getKey());
-        }
+        Map<String, Long> timings = GCcsvupdater.updateSpreadCSVs(allPricingData);
+
+        // Milliseconds spent on each file
+        Type type = Types.newParameterizedType(Map.class, String.class, Long.class);
+        JsonAdapter<Map<String, Long>> adapter = new Moshi.Builder().build().adapter(type);
+        response.type("application/json");
+        return adapter.toJson(timings);
       } else {
         System.out.println("No new pricing data found.");
       }
@@ -0,0 +1,124 @@
+package Handlers;
+
+import ExcelUtil.ExcelUpdater;
+import ExcelUtil.InventoryJob;
+import com.squareup.moshi.Moshi;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import javax.servlet.http.Part;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+/**
+ * Takes any number of inventory PDFs in one request, as separate multipart parts and/or zip files
+ * of PDFs, and queues them as one {@link InventoryJob}, answering 202 with the job's id. The job
+ * reads them in parallel and merges them into the workbooks in one pass, as
+ * {@link ExcelUpdater#processPdfs} does, so a backfill costs one workbook write per grade rather
+ * than one per report. Reports that cannot be read are listed under the job status's errors; the
+ * rest are merged.
+ */
+public class InventoryBulkUploadHandler implements Route {
+
+  private static final String UPLOAD_DIR = "data/pdfToAdd/";
+
+  @Override
+  public Object handle(Request request, Response response) throws Exception {
+    response.type("application/json");
+
+    Path uploadPath = Paths.get(UPLOAD_DIR);
+    // Saved file -> the name it was uploaded as
+    Map<File, String> uploads = new LinkedHashMap<>();
+    boolean queued = false;
+    try {
+      Files.createDirectories(uploadPath);
+      if (!Files.isWritable(uploadPath)) {
+        throw new IOException("Upload directory not writable");
+      }
+
+      for (Part part : request.raw().getParts()) {
+        String name = part.getSubmittedFileName();
+        if (name == null) continue;
+
+        String lower = name.toLowerCase();
+        try (InputStream in = part.getInputStream()) {
+          if (lower.endsWith(".zip") || "application/zip".equals(part.getContentType())) {
+            saveZipEntries(in, uploadPath, uploads);
+          } else if (lower.endsWith(".pdf") || "application/pdf".equals(part.getContentType())) {
+            uploads.put(save(in, uploadPath), name);
+          } else {
+            response.status(400);
+            return error("Only PDF and zip files are accepted: " + name);
+          }
+        }
+      }
+      if (uploads.isEmpty()) {
+        response.status(400);
+        return error("No PDF files uploaded");
+      }
+
+      InventoryJob job;
+      try {
+        job = InventoryJob.submit(uploads);
+      } catch (RejectedExecutionException e) {
+        response.status(503);
+        response.header("Retry-After", "30");
+        return error("Too many uploads waiting, try again shortly");
+      }
+      // The job deletes the files when done
+      queued = true;
+
+      response.status(202);
+      response.header("Location", "/inventory-jobs/" + job.id());
+      Map<String, Object> result = new LinkedHashMap<>();
+      result.put("status", "accepted");
+      result.put("jobId", job.id());
+      result.put("statusUrl", "/inventory-jobs/" + job.id());
+      result.put("files", uploads.size());
+      return new Moshi.Builder().build().adapter(Map.class).toJson(result);
+
+    } catch (Exception e) {
+      response.status(500);
+      return error(String.valueOf(e.getMessage()));
+    } finally {
+      if (!queued) {
+        for (File file : uploads.keySet()) {
+          Files.deleteIfExists(file.toPath());
+        }
+      }
+    }
+  }
+
+  /** Saves every PDF in the zip under a generated name; entry paths are never used as file paths. */
+  private static void saveZipEntries(InputStream in, Path uploadPath, Map<File, String> uploads) throws IOException {
+    try (ZipInputStream zip = new ZipInputStream(in)) {
+      ZipEntry entry;
+      while ((entry = zip.getNextEntry()) != null) {
+        if (!entry.isDirectory() && entry.getName().toLowerCase().endsWith(".pdf")) {
+          uploads.put(save(zip, uploadPath), entry.getName());
+        }
+      }
+    }
+  }
+
+  private static File save(InputStream in, Path uploadPath) throws IOException {
+    Path path = uploadPath.resolve(UUID.randomUUID() + ".pdf");
+    Files.copy(in, path);
+    return path.toFile();
+  }
+
+  private static String error(String message) {
+    return new Moshi.Builder().build().adapter(Map.class).toJson(Map.of("error", message));
+  }
+}
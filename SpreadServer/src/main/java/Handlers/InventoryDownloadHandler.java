@@ -3,35 +3,45 @@ package Handlers;
 import spark.Request;
 import spark.Response;
 import spark.Route;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.nio.file.Files;
-
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Downloads the inventory report, or with ?fuel=A the Magellan workbook for that fuel
+ * (data/newA.xlsx). Files are streamed from disk with conditional and range request support; see
+ * {@link FileDownload}.
+ */
 public class InventoryDownloadHandler implements Route {
 
   private static final String EXCEL_PATH = "data/Fuel_Inventory_Report.xlsx";
+  private static final String EXCEL_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
 
   public Object handle(Request request, Response response) throws Exception {
     try {
-      File excelFile = new File(EXCEL_PATH);
+      String fuel = request.queryParams("fuel");
+      Path path;
+      String filename;
+      if (fuel == null || fuel.isBlank()) {
+        path = Paths.get(EXCEL_PATH);
+        filename = "inventory_data.xlsx";
+      } else if (fuel.trim().matches("[A-Za-z]")) {
+        String letter = fuel.trim().toUpperCase();
+        path = Paths.get("data/new" + letter + ".xlsx");
+        filename = "inventory_" + letter + ".xlsx";
+      } else {
+        response.status(400);
+        return "{\"error\":\"Unknown fuel\"}";
+      }
 
-      // Check if file exists
-      if (!excelFile.exists()) {
+      if (!path.toFile().isFile()) {
         response.status(404);
         return "{\"error\":\"Inventory data not found. Please upload data first.\"}";
       }
+      return FileDownload.send(request, response, path, EXCEL_TYPE, filename);
 
-      // Set response headers
-      response.type("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
-      response.header("Content-Disposition", "attachment; filename=inventory_data.xlsx");
-
-      // Stream the file
-      return Files.readAllBytes(excelFile.toPath());
-
-    } catch (IOException e) {
+    } catch (Exception e) {
       response.status(500);
-      return "{\"error\":\"" + e.getMessage().replace("\"", "'") + "\"}";
+      return "{\"error\":\"" + String.valueOf(e.getMessage()).replace("\"", "'") + "\"}";
     }
   }
 }
@@ -0,0 +1,26 @@
+package Handlers;
+
+import ExcelUtil.InventoryJob;
+import com.squareup.moshi.Moshi;
+import java.util.Map;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+/**
+ * Reports the progress of an inventory upload queued by {@link InventoryUploadHandler}: its state,
+ * current stage, timings per stage and any errors.
+ */
+public class InventoryJobHandler implements Route {
+
+  @Override
+  public Object handle(Request request, Response response) {
+    response.type("application/json");
+    InventoryJob job = InventoryJob.get(request.params(":id"));
+    if (job == null) {
+      response.status(404);
+      return "{\"error\":\"No such job\"}";
+    }
+    return new Moshi.Builder().build().adapter(Map.class).toJson(job.status());
+  }
+}
@@ -1,6 +1,6 @@
 package Handlers;
 
-import ExcelUtil.ExcelUpdater;
+import ExcelUtil.InventoryJob;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Path;
@@ -14,11 +14,15 @@ import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
 
+  /**
+   * Saves an uploaded inventory PDF and queues it as an {@link InventoryJob}, answering 202 with the
+   * job's id straight away. The outcome is polled from /inventory-jobs/{id}.
+   */
   public class InventoryUploadHandler implements Route {
 
     private static final String UPLOAD_DIR = "data/pdfToAdd/";
-    private static final Object PROCESSING_LOCK = new Object();
 
     public Object handle(Request request, Response response) throws Exception {
       response.type("application/json");
@@ -45,26 +49,33 @@ import java.util.UUID;
           return "{\"error\":\"Only PDF files are accepted\"}";
         }
 
-        // 4. Process with thread-safe lock
-        synchronized (PROCESSING_LOCK) {
-          String tempFilename = UUID.randomUUID() + ".pdf";
-          Path tempFilePath = uploadPath.resolve(tempFilename);
+        // 4. Save the file and queue it; the job deletes it when done
+        String tempFilename = UUID.randomUUID() + ".pdf";
+        Path tempFilePath = uploadPath.resolve(tempFilename);
 
-          try (InputStream fileContent = filePart.getInputStream()) {
-            Files.copy(fileContent, tempFilePath, StandardCopyOption.REPLACE_EXISTING);
-          }
+        try (InputStream fileContent = filePart.getInputStream()) {
+          Files.copy(fileContent, tempFilePath, StandardCopyOption.REPLACE_EXISTING);
+        }
 
-          System.out.println("Processing PDF: " + tempFilePath);
-          ExcelUpdater.processSinglePdf(tempFilePath.toFile());
+        InventoryJob job;
+        try {
+          job = InventoryJob.submit(Map.of(tempFilePath.toFile(), String.valueOf(filePart.getSubmittedFileName())));
+        } catch (RejectedExecutionException e) {
           Files.deleteIfExists(tempFilePath);
+          response.status(503);
+          response.header("Retry-After", "30");
+          return "{\"error\":\"Too many uploads waiting, try again shortly\"}";
         }
 
+        response.status(202);
+        response.header("Location", "/inventory-jobs/" + job.id());
         return new Moshi.Builder()
             .build()
             .adapter(Map.class)
             .toJson(Map.of(
-                "status", "success",
-                "message", "File processed successfully"
+                "status", "accepted",
+                "jobId", job.id(),
+                "statusUrl", "/inventory-jobs/" + job.id()
             ));
 
       } catch (Exception e) {
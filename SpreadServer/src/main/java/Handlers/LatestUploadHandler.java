@@ -1,93 +1,49 @@
 package Handlers;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.logging.Logger;
-
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import ExcelUtil.InventoryTable;
+import Utilities.Freshness;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
 
 import spark.Request;
 import spark.Response;
 import spark.Route;
 import com.google.gson.JsonObject;
 
+/**
+ * Returns the last date in the Magellan workbooks, as recorded in the freshness manifest when the
+ * last report was added. The workbook is only read if the manifest has no entry for it yet.
+ */
 public class LatestUploadHandler implements Route {
 
-  private static final String EXCEL_PATH = "data/newA.xlsx";
-  private static final Logger LOGGER = Logger.getLogger(LatestUploadHandler.class.getName());
+  private static final String DATASET = "data/newA.xlsx";
+  private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("MM/dd/yyyy");
 
   public Object handle(Request request, Response response) {
-    System.out.println("➡️  /getLatestDate endpoint hit");
     response.type("application/json");
     JsonObject jsonResponse = new JsonObject();
 
     try {
-      Path excelPath = Paths.get(EXCEL_PATH).toAbsolutePath();
-      System.out.println("Looking for file at: " + excelPath);
-      File excelFile = excelPath.toFile();
-      if (!excelFile.exists()) {
-        throw new IOException("File not found at: " + excelFile.getAbsolutePath());
-      }
-      System.out.println("📄 Checking file: " + excelFile.getAbsolutePath());
-
-      if (!excelFile.exists() || !excelFile.isFile() || excelFile.length() == 0) {
-        String errorMsg = "Excel file not found or is empty at: " + excelFile.getAbsolutePath();
-        System.err.println("❌ " + errorMsg);
-        response.status(404);
-        jsonResponse.addProperty("error", errorMsg);
-        return jsonResponse.toString();
-      }
-
-      String lastDate = "";
-      try (FileInputStream fis = new FileInputStream(excelFile);
-          Workbook workbook = new XSSFWorkbook(fis)) {
-
-        Sheet sheet = workbook.getSheet("A PREMIUM UNLEADED GASOLINE");
-        if (sheet == null) {
-          String errorMsg = "Sheet 'A PREMIUM UNLEADED GASOLINE' not found.";
-          System.err.println("❌ " + errorMsg);
-          response.status(404);
-          jsonResponse.addProperty("error", errorMsg);
-          return jsonResponse.toString();
-        }
-
-        for (int i = sheet.getLastRowNum(); i >= 0; i--) {
-          Row row = sheet.getRow(i);
-          if (row != null) {
-            Cell dateCell = row.getCell(0);
-            if (dateCell != null && !dateCell.toString().trim().isEmpty()) {
-              lastDate = dateCell.toString();
-              break;
-            }
-          }
-        }
+      Freshness.Dataset dataset = Freshness.get(DATASET);
+      if (dataset == null) {
+        // Loading the table records it in the manifest
+        InventoryTable.get("A");
+        dataset = Freshness.get(DATASET);
       }
 
-      if (lastDate.isEmpty()) {
-        String errorMsg = "No valid dates found in the sheet.";
+      if (dataset == null || dataset.lastDate == null) {
+        String errorMsg = "No valid dates found for " + DATASET;
         System.err.println("❌ " + errorMsg);
         response.status(404);
         jsonResponse.addProperty("error", errorMsg);
         return jsonResponse.toString();
       }
 
-      System.out.println("✅ Last updated date found: " + lastDate);
-      jsonResponse.addProperty("lastUpdated", lastDate);
+      jsonResponse.addProperty("lastUpdated", LocalDate.parse(dataset.lastDate).format(DATE_FORMAT));
       return jsonResponse.toString();
 
-    } catch (IOException e) {
-      String errorMsg = "Error reading Excel file: " + e.getMessage();
-      System.err.println("❌ " + errorMsg);
-      e.printStackTrace();
-      response.status(500);
-      jsonResponse.addProperty("error", errorMsg);
-      return jsonResponse.toString();
     } catch (Exception e) {
-      String errorMsg = "Unhandled exception: " + e.getMessage();
+      String errorMsg = "Error reading last update of " + DATASET + ": " + e.getMessage();
       System.err.println("❌ " + errorMsg);
       e.printStackTrace();
       response.status(500);
@@ -0,0 +1,55 @@
+package Handlers;
+
+import Utilities.SeasonalDay;
+import Utilities.SeasonalJson;
+import Utilities.SpreadBands;
+import Utilities.SpreadCalculator;
+import com.squareup.moshi.JsonWriter;
+import java.io.IOException;
+import java.util.Map;
+import okio.Buffer;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+/**
+ * Serves the precomputed percentile bands for a pair (commodity, startMonth, endMonth), or for every
+ * pair of the commodity when the months are left out.
+ */
+public class SpreadBandsHandler implements Route {
+  public Object handle(Request request, Response response) throws Exception {
+    try {
+      String commodity = request.queryParams("commodity");
+      String startMonth = request.queryParams("startMonth");
+      String endMonth = request.queryParams("endMonth");
+      if (commodity == null) {
+        throw new IOException("Please input a commodity");
+      }
+      response.type("application/json");
+
+      if (startMonth == null && endMonth == null) {
+        Buffer buffer = new Buffer();
+        try (JsonWriter writer = JsonWriter.of(buffer)) {
+          writer.beginObject();
+          for (Map.Entry<String, Map<String, float[]>> pair : SpreadBands.getAll(commodity).entrySet()) {
+            writer.name(pair.getKey());
+            SeasonalJson.writeAll(writer, pair.getValue(), SeasonalDay.Label.DASH, SpreadCalculator.SEASON_START);
+          }
+          writer.endObject();
+        }
+        return buffer.readUtf8();
+      }
+      if (startMonth == null || endMonth == null) {
+        throw new IOException("Please input both months");
+      }
+      return SeasonalJson.toJson(SpreadBands.get(commodity, startMonth, endMonth), SeasonalDay.Label.DASH,
+          SpreadCalculator.SEASON_START);
+
+    } catch (Exception e) {
+      System.err.println("ERROR RETURNING BANDS");
+      e.printStackTrace();
+      response.status(500);
+      return "{\"error\":\"" + e.getMessage() + "\"}";
+    }
+  }
+}
@@ -0,0 +1,18 @@
+package Handlers;
+
+import Utilities.SpreadCache;
+import com.squareup.moshi.Moshi;
+import java.util.Map;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+public class SpreadCacheStatsHandler implements Route {
+  public Object handle(Request request, Response response) throws Exception {
+    response.type("application/json");
+    return new Moshi.Builder()
+        .build()
+        .adapter(Map.class)
+        .toJson(SpreadCache.stats());
+  }
+}
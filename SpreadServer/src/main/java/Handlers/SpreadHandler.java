@@ -1,19 +1,14 @@
 package Handlers;
 
-import static Utilities.FiveYearAvgCalc.AvgCalc;
-import static Utilities.SpreadCalculator.spreadCalculator;
+import static Utilities.SpreadCalculator.computeSeasonalSpread;
 
-import com.squareup.moshi.JsonAdapter;
-import com.squareup.moshi.Moshi;
-import com.squareup.moshi.Types;
+import Utilities.SeasonalDay;
+import Utilities.SeasonalJson;
+import Utilities.SpreadCalculator;
 import java.io.IOException;
-import java.lang.reflect.Type;
 import java.time.LocalDate;
 import java.time.Year;
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.Map;
 import spark.Request;
 import spark.Response;
@@ -47,6 +42,9 @@ public class SpreadHandler implements Route {
       if (startMonth == null || endMonth == null) {
         throw new IOException("Please input months");
       }
+      if (commodity == null) {
+        throw new IOException("Please input a commodity");
+      }
 
       // Get current year and month
       LocalDate today = LocalDate.now();
@@ -70,56 +68,18 @@ public class SpreadHandler implements Route {
         }
       }
 
-      // Get current year
+      // The five previous years feed the average, the current year is plotted against it
       int currentYear = Year.now().getValue();
-      ArrayList<String> yearList = new ArrayList<>();
-
-      // Calculate spreads for each year
-      Map<String, Float> spreadMap1 = spreadCalculator(commodity, startMonth, endMonth, String.valueOf(currentYear - 5));
-      yearList.add(String.valueOf(currentYear - 5));
-
-      Map<String, Float> spreadMap2 = spreadCalculator(commodity, startMonth, endMonth, String.valueOf(currentYear - 4));
-      yearList.add(String.valueOf(currentYear - 4));
-
-      Map<String, Float> spreadMap3 = spreadCalculator(commodity, startMonth, endMonth, String.valueOf(currentYear - 3));
-      yearList.add(String.valueOf(currentYear - 3));
-
-      Map<String, Float> spreadMap4 = spreadCalculator(commodity, startMonth, endMonth, String.valueOf(currentYear - 2));
-      yearList.add(String.valueOf(currentYear - 2));
-
-      Map<String, Float> spreadMap5 = spreadCalculator(commodity, startMonth, endMonth, String.valueOf(currentYear - 1));
-      yearList.add(String.valueOf(currentYear - 1));
-
-      Map<String, Float> spreadMap6 = spreadCalculator(commodity, startMonth, endMonth, String.valueOf(currentYear));
-      yearList.add(String.valueOf(currentYear));
+      int[] years = new int[6];
+      for (int i = 0; i < years.length; i++) {
+        years[i] = currentYear - 5 + i;
+      }
 
+      Map<String, float[]> allYearSpreads =
+          computeSeasonalSpread(commodity, startMonth, endMonth, years);
       System.out.println("all data gathered");
 
-      // Prepare the response map
-      Map<String, Map<String, Float>> allYearSpreads = new LinkedHashMap<>();
-      allYearSpreads.put(yearList.get(0), spreadMap1);
-      allYearSpreads.put(yearList.get(1), spreadMap2);
-      allYearSpreads.put(yearList.get(2), spreadMap3);
-      allYearSpreads.put(yearList.get(3), spreadMap4);
-      allYearSpreads.put(yearList.get(4), spreadMap5);
-
-      // Calculate 5-year average (using the last 5 years)
-      Map<String, Float> fiveyearavg = AvgCalc(allYearSpreads, yearList);
-      System.out.println("5 year avg calculated");
-
-      // Add the current year
-      allYearSpreads.put(yearList.get(5), spreadMap6);
-      allYearSpreads.put("5YEARAVG", fiveyearavg);
-
-      System.out.println("final map created");
-
-      // Set up Moshi for JSON serialization
-      Moshi moshi = new Moshi.Builder().build();
-      Type innerMapType = Types.newParameterizedType(Map.class, String.class, Float.class);
-      Type outerMapType = Types.newParameterizedType(Map.class, String.class, innerMapType);
-      JsonAdapter<Map<String, Map<String, Float>>> adapter = moshi.adapter(outerMapType);
-
-      return adapter.toJson(allYearSpreads);
+      return SeasonalJson.toJson(allYearSpreads, SeasonalDay.Label.DASH, SpreadCalculator.SEASON_START);
 
     } catch (Exception e) {
       System.err.println("ERROR RETURNING MAP");
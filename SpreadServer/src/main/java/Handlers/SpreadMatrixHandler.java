@@ -0,0 +1,38 @@
+package Handlers;
+
+import Utilities.SpreadMatrix;
+import com.squareup.moshi.Moshi;
+import java.io.IOException;
+import java.time.Year;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+/**
+ * Serves the current spread, 5-year average and z-score of every calendar pair of a commodity.
+ * The year defaults to the current one.
+ */
+public class SpreadMatrixHandler implements Route {
+  public Object handle(Request request, Response response) throws Exception {
+    try {
+      String commodity = request.queryParams("commodity");
+      String year = request.queryParams("year");
+      if (commodity == null) {
+        throw new IOException("Please input a commodity");
+      }
+      int matrixYear = year == null ? Year.now().getValue() : Integer.parseInt(year);
+
+      response.type("application/json");
+      return new Moshi.Builder()
+          .build()
+          .adapter(Object.class)
+          .toJson(SpreadMatrix.get(commodity, matrixYear));
+
+    } catch (Exception e) {
+      System.err.println("ERROR RETURNING MATRIX");
+      e.printStackTrace();
+      response.status(500);
+      return "{\"error\":\"" + e.getMessage() + "\"}";
+    }
+  }
+}
@@ -14,6 +14,8 @@ import java.time.OffsetDateTime;
 import java.time.Year;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import spark.Request;
 import spark.Response;
 import spark.Route;
@@ -30,19 +32,29 @@ public class SpreadsUpdaterHandler implements Route {
       System.out.println("attempting to fetch messages");
       List<Message> messages = fetchCurveReportEmails(accessToken, userPrincipalName, csvPath);
       System.out.println("fetched messages");
+      // Collected first so every file is written once, in date order
+      Map<LocalDate, ForwardCurveData> curves = new TreeMap<>();
       for (Message message : messages) {
-        byte[] pdfBytes = extractPdfAttachment(accessToken, userPrincipalName, message);
-        System.out.println("extracted pdf");
-        ForwardCurveData curveData = parseForwardCurvePdf(pdfBytes);
-        System.out.println("got curved data");
+        // A bad report only loses itself
+        try {
+          byte[] pdfBytes = extractPdfAttachment(accessToken, userPrincipalName, message);
+          System.out.println("extracted pdf");
+          ForwardCurveData curveData = parseForwardCurvePdf(pdfBytes);
+          System.out.println("got curved data");
 
-        //See if I can get the date to be pulled from attatchement
+          //See if I can get the date to be pulled from attatchement
 
-        LocalDate date = extractDateFromAttachment(accessToken, userPrincipalName, message).minusDays(1);
-        System.out.println("data day: " + date);
-        ForwardCurveUpdater.updateForwardCurveFiles(date, curveData);
-        System.out.println("updated curves");
+          LocalDate date = extractDateFromAttachment(accessToken, userPrincipalName, message).minusDays(1);
+          System.out.println("data day: " + date);
+          // The first report for a day wins
+          curves.putIfAbsent(date, curveData);
+        } catch (IOException | RuntimeException e) {
+          e.printStackTrace();
+          System.err.println("Skipping curve report " + message.id + ": " + e.getMessage());
+        }
       }
+      ForwardCurveUpdater.updateForwardCurveFiles(curves);
+      System.out.println("updated curves");
     } catch (IOException e) {
       e.printStackTrace();
       System.err.println("Error processing curve data: " + e.getMessage());
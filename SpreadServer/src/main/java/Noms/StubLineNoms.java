@@ -5,6 +5,7 @@ import Colonial.MostRecentFungible.FungibleData;
 import com.opencsv.CSVReader;
 import com.opencsv.CSVWriter;
 import Noms.MainLine.ClerkHolidayService;
+import Utilities.Freshness;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
 import com.microsoft.graph.models.Message;
@@ -429,6 +430,7 @@ public class StubLineNoms {
   public static void clearOldData(Set<String> headersToKeep, String csvFilePath) throws IOException {
     File inputFile = new File(csvFilePath);
     File tempFile = new File("temp_" + inputFile.getName());
+    int rows = 0;
 
     try (
         CSVReader reader = new CSVReader(new FileReader(inputFile));
@@ -456,6 +458,7 @@ public class StubLineNoms {
 
       String[] row;
       while ((row = reader.readNext()) != null) {
+        rows++;
         for (int index : indicesToClear) {
           if (index < row.length) {
             row[index] = null;  // clear the column data
@@ -471,6 +474,8 @@ public class StubLineNoms {
     if (!inputFile.delete() || !tempFile.renameTo(inputFile)) {
       throw new IOException("Could not replace original file with updated data.");
     }
+    // Only old cycles are cleared, so the latest date is unchanged
+    Freshness.record(csvFilePath, null, rows);
   }
   }
 
@@ -1,7 +1,10 @@
 package Outlook;
 import java.net.HttpURLConnection;
 import java.net.URLEncoder;
+import Utilities.Freshness;
+import java.time.LocalDate;
 import java.time.Year;
+import java.time.format.DateTimeParseException;
 import java.util.Comparator;
 import java.util.TreeMap;
 import java.util.regex.Pattern;
@@ -168,7 +171,7 @@ public class ExplorerParser {
 
       File tempFile = new File("data/Explorer/explorer_transit_times" + currYear + "_temp.csv");
 
-      Map<String, String> dataLines = new TreeMap<>(new Comparator<String>() {
+      TreeMap<String, String> dataLines = new TreeMap<>(new Comparator<String>() {
         SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
 
         @Override
@@ -294,6 +297,15 @@ public class ExplorerParser {
         }
         boolean renamed = tempFile.renameTo(csvFile);
         System.out.println("[DEBUG] Temp file renamed: " + renamed);
+        if (renamed && !dataLines.isEmpty()) {
+          LocalDate lastDate = null;
+          try {
+            lastDate = LocalDate.parse(dataLines.lastKey());
+          } catch (DateTimeParseException e) {
+            System.err.println("[WARN] Last row of " + csvFile + " has no date");
+          }
+          Freshness.record(csvFile.getPath(), lastDate, dataLines.size());
+        }
       }
 
     } catch (Exception e) {
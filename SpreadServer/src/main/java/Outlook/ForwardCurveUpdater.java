@@ -1,7 +1,15 @@
 package Outlook;
 
 import Outlook.FusionCurveParser.ForwardCurveData;
+import Utilities.Freshness;
+import Utilities.PriceTable;
+import Utilities.SpreadBands;
+import Utilities.SpreadCache;
+import Utilities.SpreadMatrix;
+import Utilities.SpreadStore;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.time.LocalDate;
@@ -17,75 +25,133 @@ public class ForwardCurveUpdater {
       Map.entry("Jul", "N"), Map.entry("Aug", "Q"), Map.entry("Sep", "U"),
       Map.entry("Oct", "V"), Map.entry("Nov", "X"), Map.entry("Dec", "Z")
   );
+  private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("M/d/yyyy");
 
   public static void updateForwardCurveFiles(LocalDate date, ForwardCurveData data) {
-    int year = date.getYear();
-    int nextYear = year + 1;
+    updateForwardCurveFiles(Map.of(date, data));
+  }
 
-    List<String> filesToUpdate = List.of(
-        "data/spreads/RBOB" + year + ".csv", "data/spreads/RBOB" + nextYear + ".csv",
-        "data/spreads/HO" + year + ".csv", "data/spreads/HO" + nextYear + ".csv"
-    );
+  /**
+   * Writes several days of curves into the RBOB and HO year files. A day goes into its own year's
+   * file and next year's, and days a file already has are skipped. Each file is written once: days
+   * after its last row are appended, and if any day falls earlier the file is rewritten once with
+   * every new row merged in date order.
+   */
+  public static void updateForwardCurveFiles(Map<LocalDate, ForwardCurveData> curves) {
+    for (String commodity : List.of("RBOB", "HO")) {
+      // fileYear -> the days that belong in that file, in date order
+      Map<Integer, SortedMap<LocalDate, Map<String, Double>>> byFile = new TreeMap<>();
+      for (Map.Entry<LocalDate, ForwardCurveData> entry : curves.entrySet()) {
+        Map<String, Double> curve = commodity.equals("RBOB") ? entry.getValue().rbobNyh : entry.getValue().hoNyh;
+        int year = entry.getKey().getYear();
+        for (int fileYear : new int[] {year, year + 1}) {
+          byFile.computeIfAbsent(fileYear, y -> new TreeMap<>()).put(entry.getKey(), curve);
+        }
+      }
 
-    for (String fileName : filesToUpdate) {
-      Path path = Paths.get(fileName);
-      if (Files.exists(path)) {
-        try {
-          Map<String, Double> curve = fileName.contains("RBOB") ? data.rbobNyh : data.hoNyh;
-          System.out.println("Processing file: " + fileName);
-          System.out.println(curve);
-          updateCsvRowForDate(path, date, curve);
-        } catch (IOException e) {
-          System.err.println("Error updating " + fileName + ": " + e.getMessage());
+      boolean written = false;
+      for (Map.Entry<Integer, SortedMap<LocalDate, Map<String, Double>>> file : byFile.entrySet()) {
+        int fileYear = file.getKey();
+        String fileName = "data/spreads/" + commodity + fileYear + ".csv";
+        Path path = Paths.get(fileName);
+        if (Files.exists(path)) {
+          try {
+            System.out.println("Processing file: " + fileName);
+            if (updateCsvFile(commodity, fileYear, path, file.getValue())) {
+              SpreadCache.invalidate(commodity, fileYear);
+              written = true;
+            }
+          } catch (IOException e) {
+            System.err.println("Error updating " + fileName + ": " + e.getMessage());
+          }
+        } else {
+          System.out.println("File not found: " + fileName);
         }
-      } else {
-        System.out.println("File not found: " + fileName);
+      }
+      if (written) {
+        SpreadMatrix.invalidate(commodity);
+        SpreadBands.refresh(commodity);
       }
     }
   }
 
-  private static void updateCsvRowForDate(Path filePath, LocalDate date, Map<String, Double> curveData) throws IOException {
-    List<String> lines = Files.readAllLines(filePath, StandardCharsets.UTF_8);
-    if (lines.isEmpty()) {
+  /**
+   * @return true if any row was written
+   */
+  private static boolean updateCsvFile(String commodity, int fileYear, Path filePath,
+      SortedMap<LocalDate, Map<String, Double>> days) throws IOException {
+    String[] headers = readHeader(filePath);
+    if (headers == null) {
       System.out.println("File is empty: " + filePath);
-      return;
+      return false;
     }
 
-    // Handle BOM in header if present
-    String headerLine = lines.get(0);
-    if (headerLine.startsWith("\uFEFF")) {
-      headerLine = headerLine.substring(1);
-      lines.set(0, headerLine);
+    // The resident table mirrors the file, so existing dates are found without reading it
+    PriceTable table = SpreadStore.getTable(commodity, fileYear);
+    long lastDay = table.size() == 0 ? Long.MIN_VALUE : table.epochDay(table.size() - 1);
+
+    SortedMap<LocalDate, String> newLines = new TreeMap<>();
+    Map<LocalDate, float[]> newPrices = new HashMap<>();
+    boolean backfill = false;
+    for (Map.Entry<LocalDate, Map<String, Double>> day : days.entrySet()) {
+      LocalDate date = day.getKey();
+      if (table.rowOf(date.toEpochDay()) >= 0) {
+        System.out.println("✅ Date already exists in file: " + date.format(DATE_FORMAT));
+        continue;
+      }
+      float[] prices = new float[SpreadStore.MONTH_CODES.length()];
+      newLines.put(date, formatRow(headers, date, day.getValue(), fileYear, prices));
+      newPrices.put(date, prices);
+      backfill |= date.toEpochDay() <= lastDay;
     }
-
-    String[] headers = headerLine.split(",");
-    Map<String, Integer> monthIndex = new HashMap<>();
-    for (int i = 1; i < headers.length; i++) {
-      monthIndex.put(headers[i].trim(), i);
+    if (newLines.isEmpty()) {
+      return false;
     }
 
-    // Extract the year from the filename
     String fileName = filePath.getFileName().toString();
-    int fileYear = Integer.parseInt(fileName.replaceAll("\\D+", ""));
-
-    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("M/d/yyyy");
-    String targetDate = date.format(formatter);
-
-    // Check if this date already exists in the file
-    for (int i = 1; i < lines.size(); i++) {
-      String existingLine = lines.get(i);
-      if (!existingLine.trim().isEmpty()) {
-        String existingDate = existingLine.split(",", 2)[0];
-        if (existingDate.equals(targetDate)) {
-          System.out.println("✅ Date already exists in file: " + targetDate);
-          return; // Skip if date already exists
-        }
+    if (backfill) {
+      mergeRows(filePath, newLines);
+      SpreadStore.reload(commodity, fileYear);
+      System.out.println("✅ Merged " + newLines.size() + " rows into " + fileName);
+    } else {
+      // Appended one at a time so the snapshot can follow each row
+      for (Map.Entry<LocalDate, String> line : newLines.entrySet()) {
+        appendRow(filePath, line.getValue());
+        SpreadStore.rowWritten(commodity, fileYear, line.getKey(), newPrices.get(line.getKey()));
+        System.out.println("✅ Appended new line to " + fileName + ": " + line.getValue());
+      }
+    }
+    PriceTable written = SpreadStore.getTable(commodity, fileYear);
+    Freshness.record(filePath.toString(), written.size() == 0 ? null : written.date(written.size() - 1),
+        written.size());
+    return true;
+  }
+
+  /**
+   * @return the header columns (without a byte order mark), or null if the file is empty
+   */
+  private static String[] readHeader(Path filePath) throws IOException {
+    try (BufferedReader reader = Files.newBufferedReader(filePath, StandardCharsets.UTF_8)) {
+      String headerLine = reader.readLine();
+      if (headerLine == null) {
+        return null;
+      }
+      if (headerLine.startsWith("\uFEFF")) {
+        headerLine = headerLine.substring(1);
       }
+      return headerLine.split(",");
     }
+  }
 
-    // Create new row
+  /**
+   * Builds the CSV line for a day and fills prices with what it holds, by contract month (NaN where
+   * blank).
+   */
+  private static String formatRow(String[] headers, LocalDate date, Map<String, Double> curveData, int fileYear,
+      float[] prices) {
+    Arrays.fill(prices, Float.NaN);
     String[] newRow = new String[headers.length];
-    newRow[0] = targetDate;
+    newRow[0] = date.format(DATE_FORMAT);
 
     for (int j = 1; j < headers.length; j++) {
       String monthCode = headers[j].trim();
@@ -98,40 +164,73 @@ public class ForwardCurveUpdater {
       if (monthName != null) {
         String key = monthName + "/" + fileYear;
         newRow[j] = curveData.containsKey(key) ? String.valueOf(curveData.get(key)) : "";
+        if (!newRow[j].isEmpty()) {
+          prices[SpreadStore.monthIndex(monthCode)] = Float.parseFloat(newRow[j]);
+        }
       } else {
         newRow[j] = "";
       }
     }
+    return String.join(",", newRow);
+  }
 
-    String newLine = String.join(",", newRow);
+  /**
+   * Appends one line with a single write, adding the missing line break first if the file does
+   * not end with one.
+   */
+  private static void appendRow(Path filePath, String line) throws IOException {
+    boolean needsNewline;
+    try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+      ByteBuffer last = ByteBuffer.allocate(1);
+      needsNewline = channel.size() > 0 && channel.read(last, channel.size() - 1) == 1 && last.get(0) != '\n';
+    }
+    String text = (needsNewline ? "\n" : "") + line + "\n";
+    Files.write(filePath, text.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+  }
 
-    // Find the correct position to insert the new line
-    int insertPosition = 1; // Start after header
-    while (insertPosition < lines.size()) {
-      String line = lines.get(insertPosition);
-      if (line.trim().isEmpty()) {
-        insertPosition++;
-        continue;
+  /**
+   * Rewrites the file with the new lines merged in date order, through a temp file that replaces
+   * the original in one rename, so readers see either the old file or the new one.
+   */
+  private static void mergeRows(Path filePath, SortedMap<LocalDate, String> newLines) throws IOException {
+    Path temp = filePath.resolveSibling(filePath.getFileName() + ".tmp");
+    Iterator<Map.Entry<LocalDate, String>> pending = newLines.entrySet().iterator();
+    Map.Entry<LocalDate, String> next = pending.next();
+
+    try (BufferedReader reader = Files.newBufferedReader(filePath, StandardCharsets.UTF_8);
+        BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+      String headerLine = reader.readLine();
+      if (headerLine.startsWith("\uFEFF")) {
+        headerLine = headerLine.substring(1);
       }
+      writer.write(headerLine);
+      writer.newLine();
+
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.trim().isEmpty()) continue;
 
-      String existingDateStr = line.split(",", 2)[0];
-      try {
-        LocalDate existingDate = LocalDate.parse(existingDateStr, formatter);
-        if (date.isBefore(existingDate)) {
-          break; // Found the position to insert
+        String existingDateStr = line.split(",", 2)[0];
+        try {
+          LocalDate existingDate = LocalDate.parse(existingDateStr, DATE_FORMAT);
+          while (next != null && next.getKey().isBefore(existingDate)) {
+            writer.write(next.getValue());
+            writer.newLine();
+            next = pending.hasNext() ? pending.next() : null;
+          }
+        } catch (DateTimeParseException e) {
+          System.err.println("Skipping malformed date: " + existingDateStr);
         }
-      } catch (DateTimeParseException e) {
-        System.err.println("Skipping malformed date: " + existingDateStr);
+        writer.write(line);
+        writer.newLine();
+      }
+      while (next != null) {
+        writer.write(next.getValue());
+        writer.newLine();
+        next = pending.hasNext() ? pending.next() : null;
       }
-      insertPosition++;
     }
-
-    // Insert the new line at the correct position
-    lines.add(insertPosition, newLine);
-
-    // Write the file back with the new line inserted
-    Files.write(filePath, lines, StandardCharsets.UTF_8);
-    System.out.println("✅ Inserted new line to " + fileName + " at position " + insertPosition + ": " + newLine);
+    Files.move(temp, filePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
   }
 
-}
\ No newline at end of file
+}
@@ -2,14 +2,13 @@ package Outlook;
 
 import static Outlook.ExplorerParser.getAccessToken;
 
+import Utilities.PdfText;
 import com.microsoft.graph.authentication.IAuthenticationProvider;
 import com.microsoft.graph.models.*;
 import com.microsoft.graph.requests.*;
 import java.util.List;
 import java.util.stream.Collectors;
 import okhttp3.Request;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.text.PDFTextStripper;
 
 import java.io.*;
 import java.net.URL;
@@ -64,18 +63,28 @@ public class FusionCurveParser {
       System.out.println("attempting to fetch messages");
       List<Message> messages = fetchCurveReportEmails(accessToken, userPrincipalName, csvPath);
       System.out.println("fetched messages");
+      // Collected first so every file is written once, in date order
+      Map<LocalDate, ForwardCurveData> curves = new TreeMap<>();
       for (Message message : messages) {
-        byte[] pdfBytes = extractPdfAttachment(accessToken, userPrincipalName, message);
-        System.out.println("extracted pdf");
-        ForwardCurveData curveData = parseForwardCurvePdf(pdfBytes);
-        System.out.println("got curved data");
-        OffsetDateTime receivedDateTime = message.receivedDateTime;
-        System.out.println("message time: " + receivedDateTime);
-        LocalDate date = receivedDateTime.toLocalDate().minusDays(1);
-        System.out.println("data day: " + date);
-        ForwardCurveUpdater.updateForwardCurveFiles(date, curveData);
-        System.out.println("updated curves");
+        // A bad report only loses itself
+        try {
+          byte[] pdfBytes = extractPdfAttachment(accessToken, userPrincipalName, message);
+          System.out.println("extracted pdf");
+          ForwardCurveData curveData = parseForwardCurvePdf(pdfBytes);
+          System.out.println("got curved data");
+          OffsetDateTime receivedDateTime = message.receivedDateTime;
+          System.out.println("message time: " + receivedDateTime);
+          LocalDate date = receivedDateTime.toLocalDate().minusDays(1);
+          System.out.println("data day: " + date);
+          // The first report for a day wins
+          curves.putIfAbsent(date, curveData);
+        } catch (IOException | RuntimeException e) {
+          e.printStackTrace();
+          System.err.println("Skipping curve report " + message.id + ": " + e.getMessage());
+        }
       }
+      ForwardCurveUpdater.updateForwardCurveFiles(curves);
+      System.out.println("updated curves");
     } catch (IOException e) {
       e.printStackTrace();
       System.err.println("Error processing curve data: " + e.getMessage());
@@ -320,8 +329,8 @@ public class FusionCurveParser {
 
   public static ForwardCurveData parseForwardCurvePdf(byte[] pdfBytes) throws IOException {
     ForwardCurveData result = new ForwardCurveData();
-    try (PDDocument document = PDDocument.load(pdfBytes)) {
-      String text = new PDFTextStripper().getText(document);
+    try (PdfText pdf = PdfText.open(pdfBytes)) {
+      String text = pdf.text();
       Pattern pattern = Pattern.compile("(\\w{3}/\\d{4})\\s+([\\d.]+)(?:\\s+([\\d.]+))?");
       Matcher matcher = pattern.matcher(text);
       while (matcher.find()) {
@@ -4,6 +4,7 @@ import static spark.Spark.before;
 import static spark.Spark.options;
 import static spark.Spark.post;
 
+import ExcelUtil.InventoryTable;
 import Handlers.ActualTransitHandler;
 import Handlers.BetweenFuelSpreadHandler;
 import Handlers.ColonialTransitHandler;
@@ -11,6 +12,8 @@ import Handlers.ColonialTransitUpdaterHandler;
 import Handlers.ExplorerBulletinDateHandler;
 import Handlers.ExplorerHandler;
 import Handlers.ExplorerSchedulingHandler;
+import Handlers.GCExpressionHandler;
+import Handlers.FreshnessHandler;
 import Handlers.GCSpreadHandler;
 import Handlers.GCUpdateHandler;
 import Handlers.LatestUploadHandler;
@@ -23,13 +26,19 @@ import Handlers.OriginStartsHandler;
 import Handlers.RecentDateInfoHandler;
 import Handlers.RecentFungibleHandler;
 import Handlers.SchedulingCalendarHandler;
+import Handlers.SpreadBandsHandler;
+import Handlers.SpreadCacheStatsHandler;
 import Handlers.SpreadHandler;
+import Handlers.SpreadMatrixHandler;
 import Handlers.SpreadsUpdaterHandler;
 import Handlers.StubNomHandler;
+import Utilities.SpreadStore;
 import javax.servlet.MultipartConfigElement;
 import spark.Spark;
 
 import Handlers.InventoryUploadHandler;
+import Handlers.InventoryBulkUploadHandler;
+import Handlers.InventoryJobHandler;
 import Handlers.InventoryDownloadHandler;
 
 
@@ -84,17 +93,29 @@ public final class Server {
         return "OK";
       });
 
+      // Map the spread snapshots and read the inventory workbooks before the first request needs them
+      SpreadStore.warmUp();
+      InventoryTable.warmUp();
+
       // Register routes
       System.out.println("Registering routes...");
       Spark.get("/getSpread", new SpreadHandler());
+      Spark.get("/getSpreadCacheStats", new SpreadCacheStatsHandler());
+      Spark.get("/getSpreadBands", new SpreadBandsHandler());
+      Spark.get("/getSpreadMatrix", new SpreadMatrixHandler());
       Spark.post("/upload-inventory", new InventoryUploadHandler());
+      Spark.post("/upload-inventory-bulk", new InventoryBulkUploadHandler());
+      Spark.get("/inventory-jobs/:id", new InventoryJobHandler());
       Spark.get("/get-inventory-sheet", new InventoryDownloadHandler());
+      Spark.head("/get-inventory-sheet", new InventoryDownloadHandler());
       Spark.get("/getLatestDate", new LatestUploadHandler());
+      Spark.get("/freshness", new FreshnessHandler());
       Spark.get("/getMagellanData", new MagellanGraphHandler());
       Spark.get("/getBetweenSpreads", new BetweenFuelSpreadHandler());
       Spark.get("/getExplorerData", new ExplorerHandler());
       Spark.post("/updateSpreads", new SpreadsUpdaterHandler());
       Spark.get("/getGCSpreads", new GCSpreadHandler());
+      Spark.get("/getGCExpression", new GCExpressionHandler());
       Spark.get("/getColonialTransit", new ColonialTransitHandler());
       Spark.post("/updateColonialTransit", new ColonialTransitUpdaterHandler());
       Spark.get("/getRealTransit", new ActualTransitHandler());
@@ -0,0 +1,168 @@
+package Utilities;
+
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.Moshi;
+import com.squareup.moshi.Types;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Manifest of when every data file was last written and what it holds, kept in data/freshness.json
+ * so the dashboard can ask how current a dataset is without opening it. Datasets are keyed by their
+ * path under the working directory, e.g. "data/newA.xlsx" or "data/spreads/GulfCoast/A.csv".
+ *
+ * <p>Each writer calls {@link #record} or {@link #recordAdded} after it has written a file, and
+ * readers that load a file call {@link #refresh} in case it was replaced some other way. The
+ * manifest is written to a temp file and renamed over the old one, and readers are answered from an
+ * immutable copy held in memory, along with its JSON.
+ */
+public final class Freshness {
+  private static final Path FILE = Paths.get("data/freshness.json");
+  private static final JsonAdapter<Map<String, Dataset>> ADAPTER = new Moshi.Builder().build()
+      .adapter(Types.newParameterizedType(Map.class, String.class, Dataset.class));
+
+  private static volatile Manifest manifest;
+
+  /** One dataset's entry. */
+  public static final class Dataset {
+    /** The latest date the dataset has data for, yyyy-MM-dd, or null if not known. */
+    public String lastDate;
+    /** Data rows in the file, not counting the header, or -1 if not known. */
+    public int rows;
+    /** Starts at 1 and goes up by one every time the dataset is written. */
+    public long version;
+    /** When the dataset was last written, as an ISO-8601 instant. */
+    public String updated;
+  }
+
+  private static final class Manifest {
+    final Map<String, Dataset> datasets;
+    final String json;
+
+    Manifest(Map<String, Dataset> datasets) {
+      this.datasets = Collections.unmodifiableMap(datasets);
+      this.json = ADAPTER.toJson(datasets);
+    }
+  }
+
+  private Freshness() {}
+
+  /**
+   * Records that the dataset has just been written. A failure to save the manifest is logged; the
+   * new entry is still served until the next restart.
+   *
+   * @param lastDate the latest date the file now has data for, even if that is earlier than before;
+   *     null if the writer can't tell, which keeps the recorded one
+   * @param rows data rows in the file, or -1 if the writer can't tell
+   */
+  public static void record(String dataset, LocalDate lastDate, int rows) {
+    update(dataset, lastDate, rows, false);
+  }
+
+  /**
+   * Records a write by a writer that only adds to or updates the file and never drops data, and
+   * knows the latest day it wrote rather than the file's. The last date becomes the later of the
+   * recorded one and that day, so backfilling older days leaves it where it was.
+   */
+  public static void recordAdded(String dataset, LocalDate latestWritten, int rows) {
+    update(dataset, latestWritten, rows, true);
+  }
+
+  /**
+   * Records the dataset if the manifest has no entry for it or the entry disagrees with what a
+   * reader has just found in the file, for files that may have been replaced without going through
+   * their writer (restored, copied, edited by hand).
+   */
+  public static synchronized void refresh(String dataset, LocalDate lastDate, int rows) {
+    Dataset entry = load().datasets.get(key(dataset));
+    String date = lastDate == null ? null : lastDate.toString();
+    if (entry == null || entry.rows != rows || !Objects.equals(entry.lastDate, date)) {
+      record(dataset, lastDate, rows);
+    }
+  }
+
+  private static synchronized void update(String dataset, LocalDate lastDate, int rows, boolean forwardOnly) {
+    Map<String, Dataset> datasets = new TreeMap<>(load().datasets);
+    String key = key(dataset);
+    Dataset previous = datasets.get(key);
+
+    Dataset entry = new Dataset();
+    entry.lastDate = lastDate == null ? null : lastDate.toString();
+    if (previous != null && previous.lastDate != null
+        && (entry.lastDate == null || (forwardOnly && previous.lastDate.compareTo(entry.lastDate) > 0))) {
+      entry.lastDate = previous.lastDate;
+    }
+    entry.rows = rows;
+    entry.version = previous == null ? 1 : previous.version + 1;
+    entry.updated = Instant.now().toString();
+    datasets.put(key, entry);
+
+    Manifest updated = new Manifest(datasets);
+    manifest = updated;
+    save(updated);
+  }
+
+  /**
+   * @return the dataset's entry, or null if it has never been recorded. Shared; must not be
+   *     modified.
+   */
+  public static Dataset get(String dataset) {
+    return load().datasets.get(key(dataset));
+  }
+
+  /**
+   * @return the whole manifest as JSON: dataset -> {lastDate, rows, version, updated}
+   */
+  public static String json() {
+    return load().json;
+  }
+
+  private static Manifest load() {
+    Manifest current = manifest;
+    if (current != null) {
+      return current;
+    }
+    synchronized (Freshness.class) {
+      if (manifest == null) {
+        Map<String, Dataset> datasets = new TreeMap<>();
+        if (Files.exists(FILE)) {
+          try {
+            Map<String, Dataset> saved = ADAPTER.fromJson(Files.readString(FILE, StandardCharsets.UTF_8));
+            if (saved != null) {
+              datasets.putAll(saved);
+            }
+          } catch (IOException | RuntimeException e) {
+            System.err.println("Could not read " + FILE + ", starting a new manifest: " + e.getMessage());
+          }
+        }
+        manifest = new Manifest(datasets);
+      }
+      return manifest;
+    }
+  }
+
+  private static void save(Manifest current) {
+    Path temp = FILE.resolveSibling(FILE.getFileName() + ".tmp");
+    try {
+      Files.createDirectories(FILE.getParent());
+      Files.writeString(temp, current.json, StandardCharsets.UTF_8);
+      Files.move(temp, FILE, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      System.err.println("Could not save " + FILE + ": " + e.getMessage());
+    }
+  }
+
+  private static String key(String dataset) {
+    return Paths.get(dataset).normalize().toString().replace('\\', '/');
+  }
+}
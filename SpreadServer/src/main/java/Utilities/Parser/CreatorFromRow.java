@@ -9,4 +9,15 @@ import java.util.List;
  */
 public interface CreatorFromRow<T> {
   T create(List<String> row) throws FactoryFailureException;
+
+  /**
+   * Creates an object straight from the tokenizer's current row. Creators that only need a few
+   * fields, or numbers, should override this to read them without building Strings; the default
+   * copies the row into a list and calls {@link #create(List)}.
+   *
+   * @param row the current row, only valid for the duration of this call
+   */
+  default T create(CsvRow row) throws FactoryFailureException {
+    return create(row.toList());
+  }
 }
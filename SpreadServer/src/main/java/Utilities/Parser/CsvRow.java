@@ -0,0 +1,40 @@
+package Utilities.Parser;
+
+import java.util.List;
+
+/**
+ * The current row of a {@link CsvTokenizer}. Fields are read straight out of the tokenizer's row
+ * buffer, so a CsvRow is only valid until the tokenizer moves to the next row.
+ */
+public interface CsvRow {
+  int fieldCount();
+
+  /**
+   * @return a view of field i; copy it (e.g. with toString()) to keep it past the current row
+   */
+  CharSequence field(int i);
+
+  /**
+   * @return true if field i is missing or has no characters
+   */
+  boolean isEmpty(int i);
+
+  String getString(int i);
+
+  /**
+   * @return field i as a float, or NaN if it is missing or empty
+   * @throws NumberFormatException if the field is not a number
+   */
+  float getFloat(int i);
+
+  /**
+   * @return field i as a double, or NaN if it is missing or empty
+   * @throws NumberFormatException if the field is not a number
+   */
+  double getDouble(int i);
+
+  /**
+   * @return a copy of every field as a String
+   */
+  List<String> toList();
+}
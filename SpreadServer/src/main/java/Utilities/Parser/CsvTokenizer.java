@@ -0,0 +1,269 @@
+package Utilities.Parser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Single-pass CSV tokenizer over a char buffer. Each call to {@link #nextRow()} decodes one row into
+ * a reusable row buffer and records where each field starts and ends, so reading a file allocates
+ * nothing per field unless the caller asks for Strings.
+ *
+ * <p>Handles quoted fields (including commas, line breaks and doubled "" quotes inside them), \n and
+ * \r\n line endings, a leading byte order mark and blank lines, which are skipped.
+ */
+public final class CsvTokenizer implements CsvRow, Closeable {
+  private static final int BUFFER_SIZE = 8192;
+  // Powers of ten that are exact as floats/doubles, for the fast number path
+  private static final float[] FLOAT_POWERS = {1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f};
+  private static final double[] DOUBLE_POWERS = {
+      1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+      1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+
+  private final Reader reader;
+  private final char[] buffer = new char[BUFFER_SIZE];
+  private int position;
+  private int limit;
+  private boolean started;
+
+  private char[] row = new char[256];
+  private int rowLength;
+  private int[] starts = new int[16];
+  private int[] ends = new int[16];
+  private int fields;
+
+  // Set by parseMantissa for the number it just read
+  private int scale;
+  private boolean negative;
+
+  public CsvTokenizer(Reader reader) {
+    this.reader = reader;
+  }
+
+  /**
+   * Advances to the next non-blank row.
+   *
+   * @return false once the input is exhausted
+   */
+  public boolean nextRow() throws IOException {
+    int c = read();
+    while (c == '\n' || c == '\r') {
+      c = read();
+    }
+    if (c == -1) {
+      return false;
+    }
+
+    rowLength = 0;
+    fields = 0;
+    startField();
+    boolean quoted = false;
+    while (true) {
+      if (quoted) {
+        if (c == -1) {
+          endField();
+          return true;
+        }
+        if (c == '"') {
+          if (peek() == '"') {
+            read();
+            append('"');
+          } else {
+            quoted = false;
+          }
+        } else {
+          append((char) c);
+        }
+      } else if (c == -1 || c == '\n' || c == '\r') {
+        endField();
+        if (c == '\r' && peek() == '\n') {
+          read();
+        }
+        return true;
+      } else if (c == ',') {
+        endField();
+        startField();
+      } else if (c == '"') {
+        quoted = true;
+      } else {
+        append((char) c);
+      }
+      c = read();
+    }
+  }
+
+  @Override
+  public int fieldCount() {
+    return fields;
+  }
+
+  @Override
+  public CharSequence field(int i) {
+    checkField(i);
+    return CharBuffer.wrap(row, starts[i], ends[i] - starts[i]);
+  }
+
+  @Override
+  public boolean isEmpty(int i) {
+    return i >= fields || starts[i] == ends[i];
+  }
+
+  @Override
+  public String getString(int i) {
+    checkField(i);
+    return new String(row, starts[i], ends[i] - starts[i]);
+  }
+
+  @Override
+  public float getFloat(int i) {
+    if (isEmpty(i)) {
+      return Float.NaN;
+    }
+    long mantissa = parseMantissa(starts[i], ends[i]);
+    // Both operands are exact floats, so the division rounds exactly like Float.parseFloat
+    if (mantissa >= 0 && mantissa < (1 << 24) && scale < FLOAT_POWERS.length) {
+      float value = mantissa / FLOAT_POWERS[scale];
+      return negative ? -value : value;
+    }
+    return Float.parseFloat(getString(i));
+  }
+
+  @Override
+  public double getDouble(int i) {
+    if (isEmpty(i)) {
+      return Double.NaN;
+    }
+    long mantissa = parseMantissa(starts[i], ends[i]);
+    if (mantissa >= 0 && mantissa < (1L << 53) && scale < DOUBLE_POWERS.length) {
+      double value = mantissa / DOUBLE_POWERS[scale];
+      return negative ? -value : value;
+    }
+    return Double.parseDouble(getString(i));
+  }
+
+  @Override
+  public List<String> toList() {
+    List<String> list = new ArrayList<>(fields);
+    for (int i = 0; i < fields; i++) {
+      list.add(new String(row, starts[i], ends[i] - starts[i]));
+    }
+    return list;
+  }
+
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+
+  /**
+   * Reads a plain decimal ([-+]digits[.digits], optionally space padded) as an integer mantissa,
+   * leaving the number of fraction digits in {@link #scale} and the sign in {@link #negative}.
+   * Anything else (exponents, too many digits, stray characters) returns -1 so the caller falls
+   * back to the JDK parser.
+   */
+  private long parseMantissa(int start, int end) {
+    start = firstNonSpace(start, end);
+    while (end > start && row[end - 1] <= ' ') {
+      end--;
+    }
+    negative = start < end && row[start] == '-';
+    if (start < end && (row[start] == '-' || row[start] == '+')) {
+      start++;
+    }
+    if (start == end || end - start > 18) {
+      return -1;
+    }
+
+    long mantissa = 0;
+    boolean digits = false;
+    boolean fraction = false;
+    scale = 0;
+    for (int p = start; p < end; p++) {
+      char c = row[p];
+      if (c >= '0' && c <= '9') {
+        mantissa = mantissa * 10 + (c - '0');
+        digits = true;
+        if (fraction) {
+          scale++;
+        }
+      } else if (c == '.' && !fraction) {
+        fraction = true;
+      } else {
+        return -1;
+      }
+    }
+    return digits ? mantissa : -1;
+  }
+
+  private int firstNonSpace(int start, int end) {
+    while (start < end && row[start] <= ' ') {
+      start++;
+    }
+    return start;
+  }
+
+  private void checkField(int i) {
+    if (i < 0 || i >= fields) {
+      throw new IndexOutOfBoundsException("Field " + i + " of " + fields);
+    }
+  }
+
+  private void startField() {
+    if (fields == starts.length) {
+      starts = Arrays.copyOf(starts, fields * 2);
+      ends = Arrays.copyOf(ends, fields * 2);
+    }
+    starts[fields] = rowLength;
+  }
+
+  private void endField() {
+    ends[fields++] = rowLength;
+  }
+
+  private void append(char c) {
+    if (rowLength == row.length) {
+      row = Arrays.copyOf(row, rowLength * 2);
+    }
+    row[rowLength++] = c;
+  }
+
+  private int read() throws IOException {
+    if (position == limit && !fill()) {
+      return -1;
+    }
+    return buffer[position++];
+  }
+
+  private int peek() throws IOException {
+    if (position == limit && !fill()) {
+      return -1;
+    }
+    return buffer[position];
+  }
+
+  private boolean fill() throws IOException {
+    int read;
+    do {
+      read = reader.read(buffer, 0, buffer.length);
+    } while (read == 0);
+    if (read < 0) {
+      limit = position = 0;
+      return false;
+    }
+    position = 0;
+    limit = read;
+    if (!started) {
+      started = true;
+      if (buffer[0] == '\uFEFF') {
+        position = 1;
+        return limit > 1 || fill();
+      }
+    }
+    return true;
+  }
+}
@@ -2,10 +2,7 @@ package Utilities.Parser;
 
 import java.io.*;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 /**
  * @param <T>
@@ -52,16 +49,11 @@ public class Parser<T> {
    * @throws IOException when factory fails to create a new row
    */
   public void parse() throws IOException {
-    String line;
-    Pattern regexSplitCSVRow = Pattern.compile(",(?=([^\\\"]*\\\"[^\\\"]*\\\")*(?![^\\\"]*\\\"))");
-
-    try (BufferedReader readInBuffer = new BufferedReader(reader)) {
-      ; // wraps around readers to improve efficiency when reading
+    try (CsvTokenizer tokenizer = new CsvTokenizer(reader)) {
       boolean isEmpty = true;
       boolean firstLine = true;
 
-      while ((line = readInBuffer.readLine()) != null) {
-        if (line.isEmpty()) continue;
+      while (tokenizer.nextRow()) {
         if (firstLine && skipHeader) {
           firstLine = false;
           continue;
@@ -69,11 +61,8 @@ public class Parser<T> {
         firstLine = false;
 
         isEmpty = false;
-        String[] result = regexSplitCSVRow.split(line);
         try {
-          List<String> lineToArr = Arrays.stream(result)
-              .collect(Collectors.toList());
-          T newRow = creator.create(lineToArr);
+          T newRow = creator.create(tokenizer);
           parsedContent.add(newRow);
         } catch (FactoryFailureException e) {
           throw new IOException("Factory failed to create a new row");
@@ -0,0 +1,127 @@
+package Utilities.Parser;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Compares CSV parsing throughput on the data/spreads files: the old regex split that Parser used
+ * to do, Parser on top of {@link CsvTokenizer} (still building a List of Strings per row), and the
+ * tokenizer reading floats directly the way SpreadStore does. Files are read into memory first so
+ * only parsing is timed.
+ *
+ * <p>Run from the SpreadServer directory: java -cp target/classes:... Utilities.Parser.ParserBenchmark
+ */
+public class ParserBenchmark {
+  private static final Pattern LEGACY_SPLIT = Pattern.compile(",(?=([^\\\"]*\\\"[^\\\"]*\\\")*(?![^\\\"]*\\\"))");
+  private static final int WARMUP_ROUNDS = 20;
+  private static final int TIMED_ROUNDS = 50;
+
+  public static void main(String[] args) throws IOException {
+    File[] files = new File("data/spreads").listFiles((dir, name) -> name.endsWith(".csv"));
+    if (files == null || files.length == 0) {
+      System.out.println("No CSV files found in data/spreads");
+      return;
+    }
+    Arrays.sort(files);
+
+    List<String> contents = new ArrayList<>();
+    long bytes = 0;
+    for (File file : files) {
+      String content = Files.readString(file.toPath());
+      contents.add(content);
+      bytes += content.length();
+    }
+    System.out.printf("%d files, %.1f KB per round%n", files.length, bytes / 1024.0);
+
+    run("legacy regex split", contents, bytes, ParserBenchmark::legacySplit);
+    run("Parser + TrivialCreator", contents, bytes, ParserBenchmark::parserToLists);
+    run("CsvTokenizer getFloat", contents, bytes, ParserBenchmark::tokenizerFloats);
+  }
+
+  private interface Workload {
+    double parse(String content) throws IOException;
+  }
+
+  private static void run(String name, List<String> contents, long bytes, Workload workload) throws IOException {
+    double sink = 0;
+    for (int round = 0; round < WARMUP_ROUNDS; round++) {
+      for (String content : contents) {
+        sink += workload.parse(content);
+      }
+    }
+
+    long start = System.nanoTime();
+    for (int round = 0; round < TIMED_ROUNDS; round++) {
+      for (String content : contents) {
+        sink += workload.parse(content);
+      }
+    }
+    double seconds = (System.nanoTime() - start) / 1e9;
+    System.out.printf("%-26s %8.2f ms/round %8.1f MB/s   (checksum %.1f)%n", name,
+        seconds * 1000 / TIMED_ROUNDS, bytes * TIMED_ROUNDS / seconds / (1024 * 1024), sink);
+  }
+
+  /**
+   * What reading prices cost before the tokenizer: Parser's regex split and Stream per line, then
+   * Float.parseFloat on each String.
+   */
+  private static double legacySplit(String content) {
+    double sum = 0;
+    boolean header = true;
+    for (String line : content.split("\n")) {
+      if (line.isEmpty()) continue;
+      List<String> row = Arrays.stream(LEGACY_SPLIT.split(line)).collect(Collectors.toList());
+      if (header) {
+        header = false;
+        continue;
+      }
+      for (int i = 1; i < row.size(); i++) {
+        if (!row.get(i).isEmpty()) {
+          sum += Float.parseFloat(row.get(i));
+        }
+      }
+    }
+    return sum;
+  }
+
+  private static double parserToLists(String content) {
+    Parser<List<String>> parser = new Parser<>(new StringReader(content), new TrivialCreator(), true);
+    try {
+      parser.parse();
+    } catch (IOException e) {
+      return 0; // empty file
+    }
+    double sum = 0;
+    for (List<String> row : parser.getParsedContent()) {
+      for (int i = 1; i < row.size(); i++) {
+        if (!row.get(i).isEmpty()) {
+          sum += Float.parseFloat(row.get(i));
+        }
+      }
+    }
+    return sum;
+  }
+
+  private static double tokenizerFloats(String content) throws IOException {
+    double sum = 0;
+    try (CsvTokenizer csv = new CsvTokenizer(new StringReader(content))) {
+      csv.nextRow();
+      while (csv.nextRow()) {
+        for (int i = 1; i < csv.fieldCount(); i++) {
+          float value = csv.getFloat(i);
+          if (!Float.isNaN(value)) {
+            sum += value;
+          }
+        }
+      }
+    }
+    return sum;
+  }
+}
@@ -12,4 +12,9 @@ public class TrivialCreator implements CreatorFromRow<List<String>> {
   public List<String> create(List<String> row) {
     return row;
   }
+
+  @Override
+  public List<String> create(CsvRow row) {
+    return row.toList();
+  }
 }
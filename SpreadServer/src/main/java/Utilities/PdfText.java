@@ -0,0 +1,119 @@
+package Utilities;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+/**
+ * Text extraction for the reports we receive as PDFs (Magellan inventory, forward curves). A
+ * document is opened once and its text read one page at a time, so a reader can stop at the page
+ * holding the table it wants instead of stripping the whole document. Documents are loaded with a
+ * mixed memory setting: up to {@value #MAIN_MEMORY_BYTES} bytes of scratch data stay on the heap
+ * and anything beyond goes to a temp file.
+ *
+ * <p>Not thread safe; each thread opens its own.
+ */
+public final class PdfText implements Closeable {
+  private static final long MAIN_MEMORY_BYTES = 1 << 20;
+
+  private final PDDocument document;
+  private final PDFTextStripper stripper;
+
+  private PdfText(PDDocument document) throws IOException {
+    this.document = document;
+    this.stripper = new PDFTextStripper();
+  }
+
+  public static PdfText open(File pdf) throws IOException {
+    return new PdfText(PDDocument.load(pdf, MemoryUsageSetting.setupMixed(MAIN_MEMORY_BYTES)));
+  }
+
+  public static PdfText open(byte[] pdf) throws IOException {
+    return new PdfText(PDDocument.load(pdf, null, null, null, MemoryUsageSetting.setupMixed(MAIN_MEMORY_BYTES)));
+  }
+
+  public int pages() {
+    return document.getNumberOfPages();
+  }
+
+  /**
+   * @return the text of one page, numbered from 1
+   */
+  public String page(int page) throws IOException {
+    return pages(page, page);
+  }
+
+  /**
+   * @return the text of pages first to last inclusive, numbered from 1
+   */
+  public String pages(int first, int last) throws IOException {
+    stripper.setStartPage(first);
+    stripper.setEndPage(last);
+    return stripper.getText(document);
+  }
+
+  /**
+   * @return the text of the whole document
+   */
+  public String text() throws IOException {
+    return pages(1, pages());
+  }
+
+  @Override
+  public void close() throws IOException {
+    document.close();
+  }
+
+  /**
+   * Finds, in one pass over the lines of the text, the first line starting with each of the
+   * prefixes that found does not already hold, and adds the rest of that line (after the prefix,
+   * trimmed) under the prefix. Prefixes are tried in order, so a longer prefix that shares its start
+   * with a shorter one must come first.
+   *
+   * @return found, for chaining
+   */
+  public static Map<String, String> linesStartingWith(CharSequence text, Collection<String> prefixes,
+      Map<String, String> found) {
+    int length = text.length();
+    int start = 0;
+    while (start < length && found.size() < prefixes.size()) {
+      int end = start;
+      while (end < length && text.charAt(end) != '\n' && text.charAt(end) != '\r') {
+        end++;
+      }
+      for (String prefix : prefixes) {
+        if (!found.containsKey(prefix) && startsWith(text, start, end, prefix)) {
+          found.put(prefix, text.subSequence(start + prefix.length(), end).toString().trim());
+          break;
+        }
+      }
+      start = end + 1;
+    }
+    return found;
+  }
+
+  /**
+   * @see #linesStartingWith(CharSequence, Collection, Map)
+   */
+  public static Map<String, String> linesStartingWith(CharSequence text, Collection<String> prefixes) {
+    return linesStartingWith(text, prefixes, new LinkedHashMap<>());
+  }
+
+  private static boolean startsWith(CharSequence text, int start, int end, String prefix) {
+    if (end - start < prefix.length()) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length(); i++) {
+      if (text.charAt(start + i) != prefix.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
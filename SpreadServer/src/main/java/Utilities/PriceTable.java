@@ -0,0 +1,88 @@
+package Utilities;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+
+/**
+ * Immutable, columnar view of one data/spreads/{commodity}{year}.csv file. Rows are trading days in
+ * ascending date order with one row per date, columns are the twelve contract months F..Z. Missing
+ * prices are stored as NaN.
+ *
+ * <p>The rows are read straight out of a buffer in the {@link SpreadSnapshot} row layout, normally
+ * the memory-mapped snapshot file, so opening a table does no parsing.
+ */
+public final class PriceTable {
+  private final ByteBuffer rows;
+  private final int size;
+
+  /**
+   * @param rows the table's rows in {@link SpreadSnapshot} layout, starting at position 0
+   * @param size number of rows
+   */
+  PriceTable(ByteBuffer rows, int size) {
+    this.rows = rows;
+    this.size = size;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public int epochDay(int row) {
+    return rows.getInt(row * SpreadSnapshot.ROW_BYTES);
+  }
+
+  public LocalDate date(int row) {
+    return LocalDate.ofEpochDay(epochDay(row));
+  }
+
+  /**
+   * @return the {@link SeasonalDay} index of the row's date
+   */
+  public int seasonalDay(int row) {
+    return rows.getInt(row * SpreadSnapshot.ROW_BYTES + 4);
+  }
+
+  /**
+   * @return the first row dated on or after the given day, or {@link #size()} if there is none
+   */
+  public int firstRowOnOrAfter(long epochDay) {
+    int index = search(epochDay);
+    return index >= 0 ? index : -index - 1;
+  }
+
+  /**
+   * @return the row for the given day, or -1 if the file has no row for it
+   */
+  public int rowOf(long epochDay) {
+    int index = search(epochDay);
+    return index >= 0 ? index : -1;
+  }
+
+  /**
+   * @param month contract month index, 0 (F) to 11 (Z)
+   * @param row row index
+   * @return the settlement price, or NaN if the file has no value for that month and day
+   */
+  public float price(int month, int row) {
+    return rows.getFloat(row * SpreadSnapshot.ROW_BYTES + 8 + month * 4);
+  }
+
+  /** Same contract as {@link java.util.Arrays#binarySearch(int[], int)}. */
+  private int search(long epochDay) {
+    int low = 0;
+    int high = size - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int day = epochDay(mid);
+      if (day < epochDay) {
+        low = mid + 1;
+      } else if (day > epochDay) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -(low + 1);
+  }
+}
@@ -0,0 +1,114 @@
+package Utilities;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Aggregates any number of years of a seasonal series, each a float[{@link SeasonalDay#DAYS}] (or
+ * double[] where full precision matters) with NaN for missing days, into per-day statistics.
+ * Missing values are skipped rather than dropping the day, so a 5-year average on a day only four
+ * years traded is the mean of those four.
+ *
+ * <p>Mean, min, max, standard deviation and the configured percentiles all come out of one pass
+ * over the days. Percentiles interpolate linearly between the closest ranks (Excel's
+ * PERCENTILE.INC).
+ */
+public final class SeasonalAggregator {
+  private final double[] percentileLevels;
+
+  /**
+   * @param percentileLevels percentiles to compute, between 0 and 100; none is fine
+   */
+  public SeasonalAggregator(double... percentileLevels) {
+    for (double level : percentileLevels) {
+      if (level < 0 || level > 100) {
+        throw new IllegalArgumentException("Percentile out of range: " + level);
+      }
+    }
+    this.percentileLevels = percentileLevels.clone();
+  }
+
+  public SeasonalStats aggregate(List<float[]> years) {
+    return aggregate(years.size(), (year, day) -> years.get(year)[day]);
+  }
+
+  public SeasonalStats aggregateDoubles(List<double[]> years) {
+    return aggregate(years.size(), (year, day) -> years.get(year)[day]);
+  }
+
+  private interface DayValues {
+    double get(int year, int day);
+  }
+
+  private SeasonalStats aggregate(int yearCount, DayValues years) {
+    int days = SeasonalDay.DAYS;
+    int[] count = new int[days];
+    double[] mean = new double[days];
+    double[] min = new double[days];
+    double[] max = new double[days];
+    double[] stdDev = new double[days];
+    double[][] percentiles = new double[percentileLevels.length][days];
+    double[] values = new double[yearCount];
+
+    for (int day = 0; day < days; day++) {
+      int n = 0;
+      double sum = 0;
+      for (int year = 0; year < yearCount; year++) {
+        double value = years.get(year, day);
+        if (!Double.isNaN(value)) {
+          values[n++] = value;
+          sum += value;
+        }
+      }
+      count[day] = n;
+
+      if (n == 0) {
+        mean[day] = min[day] = max[day] = stdDev[day] = Double.NaN;
+        for (double[] percentile : percentiles) {
+          percentile[day] = Double.NaN;
+        }
+        continue;
+      }
+
+      double average = sum / n;
+      double squares = 0;
+      for (int i = 0; i < n; i++) {
+        squares += (values[i] - average) * (values[i] - average);
+      }
+      mean[day] = average;
+      stdDev[day] = n > 1 ? Math.sqrt(squares / (n - 1)) : Double.NaN;
+
+      Arrays.sort(values, 0, n);
+      min[day] = values[0];
+      max[day] = values[n - 1];
+      for (int p = 0; p < percentileLevels.length; p++) {
+        double rank = percentileLevels[p] / 100.0 * (n - 1);
+        int lower = (int) Math.floor(rank);
+        int upper = Math.min(lower + 1, n - 1);
+        percentiles[p][day] = values[lower] + (rank - lower) * (values[upper] - values[lower]);
+      }
+    }
+
+    return new SeasonalStats(count, mean, min, max, stdDev, percentileLevels.clone(), percentiles);
+  }
+
+  /**
+   * @return a series with every day missing, ready to be filled by {@link SeasonalDay} index
+   */
+  public static float[] emptySeries() {
+    float[] series = new float[SeasonalDay.DAYS];
+    Arrays.fill(series, Float.NaN);
+    return series;
+  }
+
+  /**
+   * Narrows one of the {@link SeasonalStats} arrays to a float series; days with no data stay NaN.
+   */
+  public static float[] toFloats(double[] values) {
+    float[] series = new float[values.length];
+    for (int day = 0; day < values.length; day++) {
+      series[day] = (float) values[day];
+    }
+    return series;
+  }
+}
@@ -0,0 +1,99 @@
+package Utilities;
+
+import java.time.LocalDate;
+
+/**
+ * Day-of-season index used by the seasonal arrays. Days are numbered through a leap year, so Jan 1
+ * is 0, Feb 29 is always 59, Mar 1 is always 60 and Dec 31 is 365. In non-leap years index 59 is
+ * simply never filled.
+ *
+ * <p>Series are stored and joined by this index; it only becomes a String through {@link Label}
+ * when a response is written.
+ */
+public final class SeasonalDay {
+  public static final int DAYS = 366;
+  public static final int FEB_29 = 59;
+
+  // Index of the first day of each month, January first
+  private static final int[] MONTH_START = {0, 31, 60, 91, 121, 152, 182, 213, 244, 274, 305, 335};
+
+  /**
+   * The month/day formats the dashboard expects, precomputed for every day.
+   */
+  public enum Label {
+    /** "01-05", used by the RBOB/HO spreads. */
+    DASH("%02d-%02d"),
+    /** "1/5", used by the Gulf Coast and Chicago spreads. */
+    SHORT("%d/%d"),
+    /** "01/05", used by the Magellan inventory graphs. */
+    SLASH("%02d/%02d");
+
+    private final String[] text = new String[DAYS];
+
+    Label(String pattern) {
+      for (int day = 0; day < DAYS; day++) {
+        text[day] = String.format(pattern, month(day), dayOfMonth(day));
+      }
+    }
+
+    public String of(int day) {
+      return text[day];
+    }
+  }
+
+  private SeasonalDay() {}
+
+  public static int of(int month, int dayOfMonth) {
+    return MONTH_START[month - 1] + dayOfMonth - 1;
+  }
+
+  public static int of(LocalDate date) {
+    return of(date.getMonthValue(), date.getDayOfMonth());
+  }
+
+  public static int month(int index) {
+    int month = MONTH_START.length;
+    while (MONTH_START[month - 1] > index) {
+      month--;
+    }
+    return month;
+  }
+
+  public static int dayOfMonth(int index) {
+    return index - MONTH_START[month(index) - 1] + 1;
+  }
+
+  private static int monthLength(int month) {
+    return (month == 12 ? DAYS : MONTH_START[month]) - MONTH_START[month - 1];
+  }
+
+  /**
+   * Reads a month/day key such as "1/5", "01/05" or "01-05" (the year, if present, is ignored, and so
+   * are spaces).
+   *
+   * @return the day index, or -1 if the key is not a month and day
+   */
+  public static int parse(CharSequence key) {
+    int month = 0;
+    int day = 0;
+    int part = 0;
+    for (int i = 0; i < key.length(); i++) {
+      char c = key.charAt(i);
+      if (c >= '0' && c <= '9') {
+        if (part == 0) {
+          month = month * 10 + (c - '0');
+        } else if (part == 1) {
+          day = day * 10 + (c - '0');
+        }
+      } else if (c == '/' || c == '-') {
+        part++;
+      } else if (c != ' ') {
+        return -1;
+      }
+    }
+    if (part < 1 || month < 1 || month > 12 || day < 1 || day > monthLength(month)) {
+      return -1;
+    }
+    return of(month, day);
+  }
+}
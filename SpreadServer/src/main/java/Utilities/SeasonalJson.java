@@ -0,0 +1,47 @@
+package Utilities;
+
+import com.squareup.moshi.JsonWriter;
+import java.io.IOException;
+import java.util.Map;
+import okio.Buffer;
+
+/**
+ * Writes float[{@link SeasonalDay#DAYS}] series as the date-keyed JSON objects the dashboard reads,
+ * e.g. {"2024":{"12-01":0.05,...},"5YEARAVG":{...}}. Days are written in order starting from
+ * firstDay and wrapping round the year; missing (NaN) days are left out. Values are written the same
+ * way Moshi writes a Float.
+ */
+public final class SeasonalJson {
+  private SeasonalJson() {}
+
+  public static String toJson(Map<String, float[]> seriesByName, SeasonalDay.Label label, int firstDay)
+      throws IOException {
+    Buffer buffer = new Buffer();
+    try (JsonWriter writer = JsonWriter.of(buffer)) {
+      writeAll(writer, seriesByName, label, firstDay);
+    }
+    return buffer.readUtf8();
+  }
+
+  public static void writeAll(JsonWriter writer, Map<String, float[]> seriesByName, SeasonalDay.Label label,
+      int firstDay) throws IOException {
+    writer.beginObject();
+    for (Map.Entry<String, float[]> entry : seriesByName.entrySet()) {
+      writer.name(entry.getKey());
+      writeSeries(writer, entry.getValue(), label, firstDay);
+    }
+    writer.endObject();
+  }
+
+  public static void writeSeries(JsonWriter writer, float[] series, SeasonalDay.Label label, int firstDay)
+      throws IOException {
+    writer.beginObject();
+    for (int i = 0; i < SeasonalDay.DAYS; i++) {
+      int day = (firstDay + i) % SeasonalDay.DAYS;
+      if (!Float.isNaN(series[day])) {
+        writer.name(label.of(day)).value(Float.valueOf(series[day]));
+      }
+    }
+    writer.endObject();
+  }
+}
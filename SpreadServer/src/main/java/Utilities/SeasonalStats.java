@@ -0,0 +1,43 @@
+package Utilities;
+
+/**
+ * Per-day statistics produced by {@link SeasonalAggregator}. Every array is indexed by
+ * {@link SeasonalDay}; a day no year had a value for has count 0 and NaN everywhere else.
+ */
+public final class SeasonalStats {
+  /** How many years had a value on each day. */
+  public final int[] count;
+  public final double[] mean;
+  public final double[] min;
+  public final double[] max;
+  /** Sample standard deviation; NaN on days with fewer than two values. */
+  public final double[] stdDev;
+  /** The percentile levels requested, e.g. {10, 50, 90}. */
+  public final double[] percentileLevels;
+  /** percentiles[i][day] is the percentileLevels[i] percentile on that day. */
+  public final double[][] percentiles;
+
+  SeasonalStats(int[] count, double[] mean, double[] min, double[] max, double[] stdDev,
+      double[] percentileLevels, double[][] percentiles) {
+    this.count = count;
+    this.mean = mean;
+    this.min = min;
+    this.max = max;
+    this.stdDev = stdDev;
+    this.percentileLevels = percentileLevels;
+    this.percentiles = percentiles;
+  }
+
+  /**
+   * @param level one of the levels the aggregator was built with
+   * @return that percentile for every day
+   */
+  public double[] percentile(double level) {
+    for (int i = 0; i < percentileLevels.length; i++) {
+      if (percentileLevels[i] == level) {
+        return percentiles[i];
+      }
+    }
+    throw new IllegalArgumentException("Percentile " + level + " was not computed");
+  }
+}
@@ -0,0 +1,117 @@
+package Utilities;
+
+import java.io.IOException;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Seasonal percentile bands for every calendar pair of a commodity. Each pair holds the 10th, 25th,
+ * 50th, 75th and 90th percentile of the five previous years' spread on each day, plus the current
+ * year's spread to plot against them, as {@link SeasonalDay} series like those of
+ * {@link SpreadCalculator#computeSeasonalSpread}.
+ *
+ * <p>Band tables are rebuilt in the background after the forward curve updater writes a day, and
+ * built on first request if they are not there yet. Readers always see a complete table.
+ */
+public class SpreadBands {
+  public static final double[] LEVELS = {10, 25, 50, 75, 90};
+  private static final int HISTORY_YEARS = 5;
+  private static final SeasonalAggregator AGGREGATOR = new SeasonalAggregator(LEVELS);
+
+  // commodity -> pair ("NQ") -> series name -> series
+  private static final Map<String, Map<String, Map<String, float[]>>> BANDS =
+      new ConcurrentHashMap<>();
+
+  private static final ExecutorService REBUILD = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "spread-bands");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  /**
+   * @return the bands of one pair, building the commodity's tables first if needed
+   */
+  public static Map<String, float[]> get(String commodity, String startMonth, String endMonth)
+      throws IOException {
+    SpreadStore.monthIndex(startMonth);
+    SpreadStore.monthIndex(endMonth);
+    if (startMonth.equals(endMonth)) {
+      throw new IllegalArgumentException("Start and end month must differ");
+    }
+    return getAll(commodity).get(startMonth + endMonth);
+  }
+
+  /**
+   * @return the bands of every pair of a commodity, keyed by start and end month code ("NQ")
+   */
+  public static Map<String, Map<String, float[]>> getAll(String commodity) throws IOException {
+    Map<String, Map<String, float[]>> bands = BANDS.get(commodity);
+    if (bands == null) {
+      bands = build(commodity);
+      BANDS.putIfAbsent(commodity, bands);
+    }
+    return bands;
+  }
+
+  /**
+   * Queues a rebuild of the commodity's tables. The old tables keep being served until the new
+   * ones are complete.
+   */
+  public static void refresh(String commodity) {
+    REBUILD.submit(() -> {
+      try {
+        BANDS.put(commodity, build(commodity));
+      } catch (Exception e) {
+        System.err.println("Error rebuilding spread bands for " + commodity + ": " + e.getMessage());
+      }
+    });
+  }
+
+  private static Map<String, Map<String, float[]>> build(String commodity) throws IOException {
+    long start = System.currentTimeMillis();
+    int currentYear = Year.now().getValue();
+    int[] years = new int[HISTORY_YEARS + 1];
+    for (int i = 0; i < years.length; i++) {
+      years[i] = currentYear - HISTORY_YEARS + i;
+    }
+
+    Map<String, Map<String, float[]>> bands = new LinkedHashMap<>();
+    String codes = SpreadStore.MONTH_CODES;
+    for (int s = 0; s < codes.length(); s++) {
+      for (int e = 0; e < codes.length(); e++) {
+        if (s == e) continue;
+        String startMonth = String.valueOf(codes.charAt(s));
+        String endMonth = String.valueOf(codes.charAt(e));
+        bands.put(startMonth + endMonth, buildPair(commodity, startMonth, endMonth, years));
+      }
+    }
+    System.out.println("Built spread bands for " + commodity + " in " + (System.currentTimeMillis() - start) + " ms");
+    return Collections.unmodifiableMap(bands);
+  }
+
+  private static Map<String, float[]> buildPair(String commodity, String startMonth, String endMonth,
+      int[] years) throws IOException {
+    Map<String, float[]> allYears = SpreadCalculator.computeSeasonalSpread(commodity, startMonth,
+        endMonth, years);
+
+    List<float[]> history = new ArrayList<>();
+    for (int i = 0; i < HISTORY_YEARS; i++) {
+      history.add(allYears.get(String.valueOf(years[i])));
+    }
+    SeasonalStats stats = AGGREGATOR.aggregate(history);
+
+    Map<String, float[]> pair = new LinkedHashMap<>();
+    for (double level : LEVELS) {
+      pair.put("P" + (int) level, SeasonalAggregator.toFloats(stats.percentile(level)));
+    }
+    pair.put("CURRENT", allYears.get(String.valueOf(years[HISTORY_YEARS])));
+    return pair;
+  }
+}
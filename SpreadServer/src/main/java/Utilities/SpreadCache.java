@@ -0,0 +1,121 @@
+package Utilities;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.io.IOException;
+import java.time.Year;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Caches single-year spread series keyed by (commodity, startMonth, endMonth, year). Each key also
+ * carries the {@link SpreadStore#version} of the files it was computed from, so a result computed
+ * from a table that has since been reloaded can never be served.
+ *
+ * <p>Series are float[{@link SeasonalDay#DAYS}] arrays shared by every caller, so they must not be
+ * modified. The cache is bounded by the number of series it holds. Years whose files can no longer
+ * change (everything before the current year) weigh nothing and are never evicted. Series that read
+ * the current or next year's file are dropped by {@link #invalidate} as soon as the forward curve
+ * updater writes that file.
+ */
+public class SpreadCache {
+  private static final long MAX_SERIES = 1_000;
+
+  private static final Cache<Key, float[]> CACHE = CacheBuilder.newBuilder()
+      .maximumWeight(MAX_SERIES)
+      .weigher((Key key, float[] series) -> key.isPinned() ? 0 : 1)
+      .recordStats()
+      .build();
+
+  /**
+   * Loads one year of a spread series when it is not cached.
+   */
+  public interface SeriesLoader {
+    float[] load() throws IOException;
+  }
+
+  public static float[] get(String commodity, String startMonth, String endMonth, int year,
+      SeriesLoader loader) throws IOException {
+    Key key = new Key(commodity, startMonth, endMonth, year);
+    try {
+      return CACHE.get(key, loader::load);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+  /**
+   * Drops every series that was computed from data/spreads/{commodity}{fileYear}.csv. Called after
+   * that file has been written and its table reloaded.
+   */
+  public static void invalidate(String commodity, int fileYear) {
+    CACHE.asMap().keySet().removeIf(key -> key.commodity.equals(commodity) && key.readsFile(fileYear));
+    System.out.println("Invalidated cached spreads for " + commodity + fileYear);
+  }
+
+  /**
+   * @return hit, miss and eviction counters since startup
+   */
+  public static Map<String, Object> stats() {
+    CacheStats stats = CACHE.stats();
+    Map<String, Object> result = new LinkedHashMap<>();
+    result.put("hitCount", stats.hitCount());
+    result.put("missCount", stats.missCount());
+    result.put("hitRate", stats.hitRate());
+    result.put("evictionCount", stats.evictionCount());
+    result.put("averageLoadMillis", stats.averageLoadPenalty() / 1_000_000.0);
+    result.put("size", CACHE.size());
+    return result;
+  }
+
+  private static final class Key {
+    final String commodity;
+    final String startMonth;
+    final String endMonth;
+    final int year;
+    final boolean rolling;
+    final long startVersion;
+    final long endVersion;
+
+    Key(String commodity, String startMonth, String endMonth, int year) {
+      this.commodity = commodity;
+      this.startMonth = startMonth;
+      this.endMonth = endMonth;
+      this.year = year;
+      this.rolling = SpreadStore.monthIndex(startMonth) > SpreadStore.monthIndex(endMonth);
+      this.startVersion = SpreadStore.version(commodity, year);
+      this.endVersion = rolling ? SpreadStore.version(commodity, year + 1) : startVersion;
+    }
+
+    /** Rolling spreads also read next year's file for the end month. */
+    boolean readsFile(int fileYear) {
+      return fileYear == year || (rolling && fileYear == year + 1);
+    }
+
+    boolean isPinned() {
+      return (rolling ? year + 1 : year) < Year.now().getValue();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return year == other.year && startVersion == other.startVersion && endVersion == other.endVersion
+          && commodity.equals(other.commodity) && startMonth.equals(other.startMonth)
+          && endMonth.equals(other.endMonth);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(commodity, startMonth, endMonth, year, startVersion, endVersion);
+    }
+  }
+}
@@ -1,11 +1,14 @@
 package Utilities;
-import Utilities.Parser.TrivialCreator;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.Year;
 import java.util.*;
-import Utilities.Parser.Parser;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class SpreadCalculator {
 
@@ -28,6 +31,18 @@ public class SpreadCalculator {
     CONTRACT_CONFIG.put("Z", new String[]{"11", "30", "0"});   // December - expires last biz day of Nov
   }
 
+  // Years of a seasonal spread are independent, so they are computed side by side
+  private static final ExecutorService YEAR_POOL = Executors.newFixedThreadPool(
+      Runtime.getRuntime().availableProcessors(), runnable -> {
+        Thread thread = new Thread(runnable, "spread-year");
+        thread.setDaemon(true);
+        return thread;
+      });
+
+  private static final SeasonalAggregator AVERAGE = new SeasonalAggregator();
+  /** Spread seasons start on Dec 1 of the year before the contract year. */
+  public static final int SEASON_START = SeasonalDay.of(12, 1);
+
   public static void main(String[] args) throws IOException {
     Map<String, Float> map = spreadCalculator("RBOB", "N", "Q", "2025");
     System.out.println(map);
@@ -55,178 +70,106 @@ public class SpreadCalculator {
 
   public static Map<String, Float> spreadCalculator(String commodity, String startMonth, String endMonth, String baseYear)
       throws IOException {
-    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("M/d/yyyy");
-
-    // Determine the correct years for each contract
-    String startYear = baseYear;
-    String endYear = baseYear;
-
-    // Get contract months as integers for comparison
-    Map<String, Integer> monthToInt = Map.ofEntries(
-        Map.entry("F", 1), Map.entry("G", 2), Map.entry("H", 3), Map.entry("J", 4),
-        Map.entry("K", 5), Map.entry("M", 6), Map.entry("N", 7), Map.entry("Q", 8),
-        Map.entry("U", 9), Map.entry("V", 10), Map.entry("X", 11), Map.entry("Z", 12)
-    );
-
-    int startMonthInt = monthToInt.get(startMonth);
-    int endMonthInt = monthToInt.get(endMonth);
-
-    // If start month is after end month in calendar order, end contract is from next year
-    boolean isRollingSpread = (startMonthInt > endMonthInt);
-    if (isRollingSpread) {
-      endYear = String.valueOf(Integer.parseInt(baseYear) + 1);
-    }
-
-    // Get contract expiration dates
-    Map<String, String> startContract = getContractDates(startYear, startMonth);
-    Map<String, String> endContract = getContractDates(endYear, endMonth);
-
-    LocalDate startContractDate = LocalDate.parse(startContract.get("contractDate"), formatter);
-    LocalDate endContractDate = LocalDate.parse(endContract.get("contractDate"), formatter);
-
-    // Calculate the correct calculation period
-    LocalDate calculationStart;
-    LocalDate calculationEnd;
-
-    if (isRollingSpread) {
-      // Rolling spread (e.g., Dec-Jan): Use Dec 1 of previous year to Nov 30 of current year
-      calculationStart = LocalDate.of(Integer.parseInt(startYear) - 1, 12, 1);
-      calculationEnd = LocalDate.of(Integer.parseInt(startYear), 11, 30);
-      System.out.println("Rolling spread detected - using period: " + calculationStart + " to " + calculationEnd);
-    } else {
-      // Normal spread (e.g., Aug-Sep): Use Dec 1 of previous year to expiration of start contract
-      calculationStart = LocalDate.of(Integer.parseInt(startYear) - 1, 12, 1);
-      calculationEnd = startContractDate;
-      System.out.println("Normal spread - using period: " + calculationStart + " to " + calculationEnd);
-    }
-
-    Map<String, Float> firstMonthValues = new LinkedHashMap<>();
-    Map<String, Float> secondMonthValues = new LinkedHashMap<>();
-
-    if (isRollingSpread) {
-      // Rolling spread: Read from TWO files
-      String startCsvFilename = "data/spreads/" + commodity + startYear + ".csv";
-      String endCsvFilename = "data/spreads/" + commodity + endYear + ".csv";
-
-      System.out.println("Reading start month from: " + startCsvFilename);
-      System.out.println("Reading end month from: " + endCsvFilename);
-
-      // Parse start month data (from current year file)
-      Parser startCsvParser = new Parser(startCsvFilename, new TrivialCreator(), false);
-      startCsvParser.parse();
-      List<List<String>> startSheet = startCsvParser.getParsedContent();
-      firstMonthValues = extractMonthData(startSheet, startMonth, calculationStart, calculationEnd, formatter);
-
-      // Parse end month data (from next year file)
-      Parser endCsvParser = new Parser(endCsvFilename, new TrivialCreator(), false);
-      endCsvParser.parse();
-      List<List<String>> endSheet = endCsvParser.getParsedContent();
-      secondMonthValues = extractMonthData(endSheet, endMonth, calculationStart, calculationEnd, formatter);
-
-    } else {
-      // Normal spread: Read from SINGLE file
-      String csvFilename = "data/spreads/" + commodity + baseYear + ".csv";
-      System.out.println("Using single file: " + csvFilename);
-
-      Parser csvParser = new Parser(csvFilename, new TrivialCreator(), false);
-      csvParser.parse();
-      List<List<String>> sheet = csvParser.getParsedContent();
-
-      HashMap<String, Integer> headerMap = new LinkedHashMap<>();
-      List<String> headers = sheet.get(0);
-      for (int i = 0; i < headers.size(); i++) {
-        String column = headers.get(i);
-        if (i > 0) {
-          headerMap.put(column, i);
-        }
-      }
-
-      Integer firstIndex = headerMap.get(startMonth);
-      Integer secondIndex = headerMap.get(endMonth);
-
-      sheet.remove(0);
-      for (List<String> row : sheet) {
-        if (row.get(0).equals("Date") || row.get(0).isEmpty()) continue;
-
-        try {
-          LocalDate date = LocalDate.parse(row.get(0), formatter);
-
-          if (!date.isBefore(calculationStart) && !date.isAfter(calculationEnd)) {
-            // Get first month value
-            if (firstIndex < row.size() && !row.get(firstIndex).isEmpty()) {
-              Float firstValue = Float.parseFloat(row.get(firstIndex));
-              firstMonthValues.put(date.toString().substring(5), firstValue);
-            }
-
-            // Get second month value
-            if (secondIndex < row.size() && !row.get(secondIndex).isEmpty()) {
-              Float secondValue = Float.parseFloat(row.get(secondIndex));
-              secondMonthValues.put(date.toString().substring(5), secondValue);
-            }
-          }
-        } catch (Exception e) {
-          System.err.println("Error processing row: " + row);
-        }
-      }
-    }
-
-    System.out.println("First month values found: " + firstMonthValues.size());
-    System.out.println("Second month values found: " + secondMonthValues.size());
-
-    HashMap<String, Float> spreadMap = new LinkedHashMap<>();
-    System.out.println("calculating differences");
-
-    for (String d : firstMonthValues.keySet()) {
-      if (secondMonthValues.containsKey(d)) {
-        Float firstValue = firstMonthValues.get(d);
-        Float secondValue = secondMonthValues.get(d);
-        Float difference = firstValue - secondValue;
-        spreadMap.put(d, difference);
-        System.out.println("Spread for " + d + ": " + difference);
+    float[] series = computeYear(commodity, startMonth, endMonth, Integer.parseInt(baseYear));
+    Map<String, Float> spreadMap = new LinkedHashMap<>();
+    for (int i = 0; i < SeasonalDay.DAYS; i++) {
+      int day = (SEASON_START + i) % SeasonalDay.DAYS;
+      if (!Float.isNaN(series[day])) {
+        spreadMap.put(SeasonalDay.Label.DASH.of(day), series[day]);
       }
     }
-
     System.out.println("Final spread map size: " + spreadMap.size());
     return spreadMap;
   }
 
-  private static Map<String, Float> extractMonthData(List<List<String>> sheet, String monthCode,
-      LocalDate calculationStart, LocalDate calculationEnd,
-      DateTimeFormatter formatter) {
-    Map<String, Float> result = new LinkedHashMap<>();
-
-    HashMap<String, Integer> headerMap = new LinkedHashMap<>();
-    List<String> headers = sheet.get(0);
-    for (int i = 0; i < headers.size(); i++) {
-      String column = headers.get(i);
-      if (i > 0) {
-        headerMap.put(column, i);
-      }
+  /**
+   * Computes the daily spread between two contract months for several years in one call. The years
+   * are independent, so each one is looked up in {@link SpreadCache} or computed on its own thread
+   * against the resident price tables.
+   *
+   * <p>Series are indexed by {@link SeasonalDay} with NaN on days without a spread; write them with
+   * {@link SeasonalJson} using {@link SeasonalDay.Label#DASH} and {@link #SEASON_START}. They may be
+   * shared with the cache and must not be modified.
+   *
+   * @param years the years to compute, oldest first; the last entry is treated as the current year
+   * @return one series per year, in the order given, followed by "5YEARAVG", the average of every
+   *     year except the last over whichever of those years have a value on each day
+   */
+  public static Map<String, float[]> computeSeasonalSpread(String commodity, String startMonth,
+      String endMonth, int[] years) throws IOException {
+    List<CompletableFuture<float[]>> futures = new ArrayList<>();
+    for (int year : years) {
+      futures.add(CompletableFuture.supplyAsync(() -> {
+        try {
+          return SpreadCache.get(commodity, startMonth, endMonth, year,
+              () -> computeYear(commodity, startMonth, endMonth, year));
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }, YEAR_POOL));
     }
 
-    Integer monthIndex = headerMap.get(monthCode);
-    if (monthIndex == null) {
-      throw new RuntimeException("Month " + monthCode + " not found in CSV headers");
+    Map<String, float[]> allYearSpreads = new LinkedHashMap<>();
+    List<float[]> averageYears = new ArrayList<>();
+    try {
+      for (int i = 0; i < years.length; i++) {
+        float[] series = futures.get(i).join();
+        allYearSpreads.put(String.valueOf(years[i]), series);
+        if (i < years.length - 1) {
+          averageYears.add(series);
+        }
+      }
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof UncheckedIOException) {
+        throw ((UncheckedIOException) e.getCause()).getCause();
+      }
+      throw e;
     }
 
-    sheet.remove(0);
-    for (List<String> row : sheet) {
-      if (row.get(0).equals("Date") || row.get(0).isEmpty()) continue;
-
-      try {
-        LocalDate date = LocalDate.parse(row.get(0), formatter);
+    SeasonalStats stats = AVERAGE.aggregate(averageYears);
+    allYearSpreads.put("5YEARAVG", SeasonalAggregator.toFloats(stats.mean));
+    return allYearSpreads;
+  }
 
-        if (!date.isBefore(calculationStart) && !date.isAfter(calculationEnd)) {
-          if (monthIndex < row.size() && !row.get(monthIndex).isEmpty()) {
-            Float value = Float.parseFloat(row.get(monthIndex));
-            result.put(date.toString().substring(5), value);
-          }
-        }
-      } catch (Exception e) {
-        System.err.println("Error processing row: " + row);
-      }
+  /**
+   * Spread of startMonth minus endMonth for one base year, indexed by {@link SeasonalDay}. Normal
+   * spreads run from Dec 1 of the previous year to the start contract's expiry and read a single
+   * file. Rolling spreads (start month after end month, e.g. Z/F) run from Dec 1 to Nov 30 and take
+   * the end month from next year's file. Either way a season never covers the same month and day
+   * twice.
+   */
+  private static float[] computeYear(String commodity, String startMonth, String endMonth, int baseYear)
+      throws IOException {
+    int startIndex = SpreadStore.monthIndex(startMonth);
+    int endIndex = SpreadStore.monthIndex(endMonth);
+    boolean isRollingSpread = startIndex > endIndex;
+
+    long calculationStart = LocalDate.of(baseYear - 1, 12, 1).toEpochDay();
+    long calculationEnd = isRollingSpread
+        ? LocalDate.of(baseYear, 11, 30).toEpochDay()
+        : contractExpiry(baseYear, startMonth).toEpochDay();
+
+    PriceTable startTable = SpreadStore.getTable(commodity, baseYear);
+    PriceTable endTable = isRollingSpread ? SpreadStore.getTable(commodity, baseYear + 1) : startTable;
+
+    float[] series = SeasonalAggregator.emptySeries();
+    for (int row = startTable.firstRowOnOrAfter(calculationStart);
+        row < startTable.size() && startTable.epochDay(row) <= calculationEnd; row++) {
+      float firstValue = startTable.price(startIndex, row);
+      if (Float.isNaN(firstValue)) continue;
+
+      int endRow = endTable == startTable ? row : endTable.rowOf(startTable.epochDay(row));
+      if (endRow < 0) continue;
+      float secondValue = endTable.price(endIndex, endRow);
+      if (Float.isNaN(secondValue)) continue;
+
+      series[startTable.seasonalDay(row)] = firstValue - secondValue;
     }
+    return series;
+  }
 
-    return result;
+  static LocalDate contractExpiry(int baseYear, String monthCode) {
+    return LocalDate.parse(getContractDates(String.valueOf(baseYear), monthCode).get("contractDate"),
+        DateTimeFormatter.ofPattern("M/d/yyyy"));
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,352 @@
+package Utilities;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A spread written as arithmetic over named series, e.g. "A - D - 0.5*Nap" or
+ * "Chi91 - GC93 - 24.319". The language has numbers, names, + - * /, unary minus and parentheses
+ * with the usual precedence. Names are letters, digits and underscores and may start with a digit
+ * ("91Chi").
+ *
+ * <p>An expression is parsed once into a postfix plan with constants folded, and plans are cached
+ * by their text. Evaluating a plan runs each step over whole arrays, so a year of daily values
+ * costs one loop per operator. Missing values are NaN and stay NaN through every operator;
+ * dividing by zero also gives NaN.
+ */
+public final class SpreadExpression {
+  private static final int MAX_PLANS = 500;
+  private static final Cache<String, SpreadExpression> PLANS = CacheBuilder.newBuilder()
+      .maximumSize(MAX_PLANS)
+      .build();
+
+  // Plan steps
+  private static final byte SERIES = 0;
+  private static final byte CONSTANT = 1;
+  private static final byte ADD = 2;
+  private static final byte SUBTRACT = 3;
+  private static final byte MULTIPLY = 4;
+  private static final byte DIVIDE = 5;
+  private static final byte NEGATE = 6;
+
+  private final String text;
+  private final byte[] steps;
+  // Operand of each step: index into names for SERIES, the value for CONSTANT
+  private final double[] operands;
+  private final List<String> names;
+  private final int maxDepth;
+
+  /**
+   * Supplies the values of a named series, or null if it has none, in which case the expression
+   * has no value either.
+   */
+  public interface SeriesSource {
+    double[] get(String name);
+  }
+
+  private SpreadExpression(String text, byte[] steps, double[] operands, List<String> names, int maxDepth) {
+    this.text = text;
+    this.steps = steps;
+    this.operands = operands;
+    this.names = names;
+    this.maxDepth = maxDepth;
+  }
+
+  /**
+   * @return the compiled plan of the expression, from the cache if it has been compiled before
+   * @throws IllegalArgumentException if the expression does not parse
+   */
+  public static SpreadExpression compile(String expression) {
+    if (expression == null || expression.isBlank()) {
+      throw new IllegalArgumentException("Please input an expression");
+    }
+    try {
+      return PLANS.get(expression.trim(), () -> new Parser(expression.trim()).parse());
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  /**
+   * @return the series names the expression reads, each once, in order of first use
+   */
+  public List<String> names() {
+    return names;
+  }
+
+  /**
+   * Evaluates the expression over arrays of the given length. Every series the source returns must
+   * have that length; the arrays are only read.
+   *
+   * @return a new array, or null if the source has no values for one of the names
+   */
+  public double[] evaluate(SeriesSource source, int length) {
+    double[][] series = new double[names.size()][];
+    for (int i = 0; i < series.length; i++) {
+      series[i] = source.get(names.get(i));
+      if (series[i] == null) {
+        return null;
+      }
+    }
+
+    // An entry is either an array (owned if it was made here and may be overwritten) or a scalar
+    double[][] arrays = new double[maxDepth][];
+    boolean[] owned = new boolean[maxDepth];
+    double[] scalars = new double[maxDepth];
+    int top = -1;
+    for (int s = 0; s < steps.length; s++) {
+      switch (steps[s]) {
+        case SERIES:
+          top++;
+          arrays[top] = series[(int) operands[s]];
+          owned[top] = false;
+          break;
+        case CONSTANT:
+          top++;
+          arrays[top] = null;
+          scalars[top] = operands[s];
+          break;
+        case NEGATE:
+          if (arrays[top] == null) {
+            scalars[top] = -scalars[top];
+          } else {
+            double[] result = owned[top] ? arrays[top] : new double[length];
+            double[] value = arrays[top];
+            for (int i = 0; i < length; i++) {
+              result[i] = -value[i];
+            }
+            arrays[top] = result;
+            owned[top] = true;
+          }
+          break;
+        default:
+          top--;
+          binary(steps[s], arrays, owned, scalars, top, length);
+      }
+    }
+    if (arrays[0] == null) {
+      // A constant expression still gives one value per element
+      double[] result = new double[length];
+      Arrays.fill(result, scalars[0]);
+      return result;
+    }
+    return owned[0] ? arrays[0] : arrays[0].clone();
+  }
+
+  /**
+   * Applies the operator to the entries at left and left + 1 and leaves the result at left.
+   */
+  private static void binary(byte op, double[][] arrays, boolean[] owned, double[] scalars, int left, int length) {
+    int right = left + 1;
+    double[] a = arrays[left];
+    double[] b = arrays[right];
+    if (a == null && b == null) {
+      scalars[left] = apply(op, scalars[left], scalars[right]);
+      return;
+    }
+
+    double[] result = a != null && owned[left] ? a : b != null && owned[right] ? b : new double[length];
+    if (b == null) {
+      double y = scalars[right];
+      for (int i = 0; i < length; i++) {
+        result[i] = apply(op, a[i], y);
+      }
+    } else if (a == null) {
+      double x = scalars[left];
+      for (int i = 0; i < length; i++) {
+        result[i] = apply(op, x, b[i]);
+      }
+    } else {
+      for (int i = 0; i < length; i++) {
+        result[i] = apply(op, a[i], b[i]);
+      }
+    }
+    arrays[left] = result;
+    owned[left] = true;
+  }
+
+  private static double apply(byte op, double x, double y) {
+    switch (op) {
+      case ADD: return x + y;
+      case SUBTRACT: return x - y;
+      case MULTIPLY: return x * y;
+      // Dividing by zero has no value rather than an infinite one
+      default: return y == 0 ? Double.NaN : x / y;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return text;
+  }
+
+  /**
+   * Recursive-descent parser that emits the postfix plan as it goes:
+   *
+   * <pre>
+   * expression := term (('+' | '-') term)*
+   * term       := unary (('*' | '/') unary)*
+   * unary      := '-' unary | primary
+   * primary    := number | name | '(' expression ')'
+   * </pre>
+   */
+  private static final class Parser {
+    private final String text;
+    private int position;
+
+    private byte[] steps = new byte[16];
+    private double[] operands = new double[16];
+    private int size;
+    private int depth;
+    private int maxDepth;
+    private final List<String> names = new ArrayList<>();
+
+    Parser(String text) {
+      this.text = text;
+    }
+
+    SpreadExpression parse() {
+      expression();
+      skipSpaces();
+      if (position < text.length()) {
+        throw error("Unexpected '" + text.charAt(position) + "'");
+      }
+      return new SpreadExpression(text, Arrays.copyOf(steps, size), Arrays.copyOf(operands, size),
+          Collections.unmodifiableList(names), maxDepth);
+    }
+
+    private void expression() {
+      term();
+      while (true) {
+        if (accept('+')) {
+          term();
+          emitBinary(ADD);
+        } else if (accept('-')) {
+          term();
+          emitBinary(SUBTRACT);
+        } else {
+          return;
+        }
+      }
+    }
+
+    private void term() {
+      unary();
+      while (true) {
+        if (accept('*')) {
+          unary();
+          emitBinary(MULTIPLY);
+        } else if (accept('/')) {
+          unary();
+          emitBinary(DIVIDE);
+        } else {
+          return;
+        }
+      }
+    }
+
+    private void unary() {
+      if (accept('-')) {
+        unary();
+        if (steps[size - 1] == CONSTANT) {
+          operands[size - 1] = -operands[size - 1];
+        } else {
+          emit(NEGATE, 0);
+        }
+      } else {
+        primary();
+      }
+    }
+
+    private void primary() {
+      if (accept('(')) {
+        expression();
+        if (!accept(')')) {
+          throw error("Expected ')'");
+        }
+        return;
+      }
+
+      skipSpaces();
+      int start = position;
+      while (position < text.length()
+          && (Character.isLetterOrDigit(text.charAt(position)) || text.charAt(position) == '_'
+          || text.charAt(position) == '.')) {
+        position++;
+      }
+      if (start == position) {
+        throw error(position < text.length() ? "Unexpected '" + text.charAt(position) + "'" : "Unexpected end");
+      }
+      String token = text.substring(start, position);
+
+      if (token.matches("\\d+(\\.\\d*)?|\\.\\d+")) {
+        push(CONSTANT, Double.parseDouble(token));
+      } else if (token.matches("\\w+")) {
+        int index = names.indexOf(token);
+        if (index < 0) {
+          index = names.size();
+          names.add(token);
+        }
+        push(SERIES, index);
+      } else {
+        position = start;
+        throw error("Bad name or number '" + token + "'");
+      }
+    }
+
+    /** Emits a binary operator, folding it into one constant when both operands are constants. */
+    private void emitBinary(byte op) {
+      depth--;
+      if (steps[size - 1] == CONSTANT && steps[size - 2] == CONSTANT) {
+        operands[size - 2] = apply(op, operands[size - 2], operands[size - 1]);
+        size--;
+      } else {
+        emit(op, 0);
+      }
+    }
+
+    private void push(byte step, double operand) {
+      emit(step, operand);
+      depth++;
+      maxDepth = Math.max(maxDepth, depth);
+    }
+
+    private void emit(byte step, double operand) {
+      if (size == steps.length) {
+        steps = Arrays.copyOf(steps, size * 2);
+        operands = Arrays.copyOf(operands, size * 2);
+      }
+      steps[size] = step;
+      operands[size] = operand;
+      size++;
+    }
+
+    private boolean accept(char c) {
+      skipSpaces();
+      if (position < text.length() && text.charAt(position) == c) {
+        position++;
+        return true;
+      }
+      return false;
+    }
+
+    private void skipSpaces() {
+      while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+        position++;
+      }
+    }
+
+    private IllegalArgumentException error(String message) {
+      return new IllegalArgumentException(message + " at position " + (position + 1) + " of expression");
+    }
+  }
+}
@@ -0,0 +1,168 @@
+package Utilities;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Every calendar pair of a commodity at once: the latest spread of the requested year, the average
+ * and standard deviation of the five previous years on the same day, and the z-score of the latest
+ * spread against them.
+ *
+ * <p>Each year's price tables are walked once, filling the daily spread of all 132 pairs in the
+ * same pass, with the same windows as {@link SpreadCalculator#computeSeasonalSpread}. Matrices are
+ * cached per commodity and year until the forward curve updater writes that commodity again.
+ */
+public class SpreadMatrix {
+  private static final int HISTORY_YEARS = 5;
+  private static final int MONTHS = SpreadStore.MONTH_CODES.length();
+  private static final SeasonalAggregator AGGREGATOR = new SeasonalAggregator();
+
+  // commodity -> year -> matrix
+  private static final Map<String, Map<Integer, Map<String, Object>>> CACHE = new ConcurrentHashMap<>();
+
+  /**
+   * @return {"commodity", "year", "pairs": {"NQ": {"date", "current", "fiveYearAvg", "stdDev",
+   *     "zScore"}, ...}}; values that cannot be computed are left out
+   */
+  public static Map<String, Object> get(String commodity, int year) throws IOException {
+    Map<Integer, Map<String, Object>> years = CACHE.computeIfAbsent(commodity, c -> new ConcurrentHashMap<>());
+    Map<String, Object> matrix = years.get(year);
+    if (matrix == null) {
+      matrix = build(commodity, year);
+      years.put(year, matrix);
+    }
+    return matrix;
+  }
+
+  /**
+   * Drops every cached matrix of the commodity. Called after its forward curve files are written.
+   */
+  public static void invalidate(String commodity) {
+    CACHE.remove(commodity);
+  }
+
+  private static Map<String, Object> build(String commodity, int year) throws IOException {
+    long start = System.currentTimeMillis();
+
+    // grids[y][pair] is the spread series of history year y (the requested year last)
+    float[][][] grids = new float[HISTORY_YEARS + 1][][];
+    for (int i = 0; i <= HISTORY_YEARS; i++) {
+      grids[i] = scanYear(commodity, year - HISTORY_YEARS + i);
+    }
+    float[][] current = grids[HISTORY_YEARS];
+
+    Map<String, Object> pairs = new LinkedHashMap<>();
+    for (int s = 0; s < MONTHS; s++) {
+      for (int e = 0; e < MONTHS; e++) {
+        if (s == e) continue;
+        int pair = s * MONTHS + e;
+        Map<String, Object> cell = new LinkedHashMap<>();
+
+        int day = lastDay(current[pair]);
+        if (day >= 0) {
+          List<float[]> history = new ArrayList<>();
+          for (int i = 0; i < HISTORY_YEARS; i++) {
+            history.add(grids[i][pair]);
+          }
+          SeasonalStats stats = AGGREGATOR.aggregate(history);
+
+          float spread = current[pair][day];
+          double mean = stats.mean[day];
+          double stdDev = stats.stdDev[day];
+          int dateYear = day >= SpreadCalculator.SEASON_START ? year - 1 : year;
+          cell.put("date", LocalDate.of(dateYear, SeasonalDay.month(day), SeasonalDay.dayOfMonth(day)).toString());
+          cell.put("current", spread);
+          putIfNumber(cell, "fiveYearAvg", mean);
+          putIfNumber(cell, "stdDev", stdDev);
+          if (stdDev > 0) {
+            cell.put("zScore", (spread - mean) / stdDev);
+          }
+        }
+        pairs.put("" + SpreadStore.MONTH_CODES.charAt(s) + SpreadStore.MONTH_CODES.charAt(e), cell);
+      }
+    }
+
+    Map<String, Object> matrix = new LinkedHashMap<>();
+    matrix.put("commodity", commodity);
+    matrix.put("year", year);
+    matrix.put("pairs", pairs);
+    System.out.println("Built " + commodity + " " + year + " spread matrix in "
+        + (System.currentTimeMillis() - start) + " ms");
+    return matrix;
+  }
+
+  /**
+   * Walks baseYear's season (Dec 1 of the year before to Nov 30) once and fills the spread of every
+   * pair on every day its window is open. Normal pairs stop at the start contract's expiry; rolling
+   * pairs (start month after end month) run to Nov 30 and take the end month from next year's file.
+   *
+   * @return series indexed by [startMonth * 12 + endMonth][SeasonalDay]
+   */
+  private static float[][] scanYear(String commodity, int baseYear) throws IOException {
+    PriceTable table = SpreadStore.getTable(commodity, baseYear);
+    PriceTable nextTable = SpreadStore.getTable(commodity, baseYear + 1);
+
+    long seasonStart = LocalDate.of(baseYear - 1, 12, 1).toEpochDay();
+    long seasonEnd = LocalDate.of(baseYear, 11, 30).toEpochDay();
+    long[] expiry = new long[MONTHS];
+    for (int m = 0; m < MONTHS; m++) {
+      expiry[m] = SpreadCalculator.contractExpiry(baseYear, String.valueOf(SpreadStore.MONTH_CODES.charAt(m)))
+          .toEpochDay();
+    }
+
+    float[][] grid = new float[MONTHS * MONTHS][];
+    for (int pair = 0; pair < grid.length; pair++) {
+      grid[pair] = SeasonalAggregator.emptySeries();
+    }
+
+    for (int row = table.firstRowOnOrAfter(seasonStart);
+        row < table.size() && table.epochDay(row) <= seasonEnd; row++) {
+      long epochDay = table.epochDay(row);
+      int day = table.seasonalDay(row);
+      int nextRow = nextTable.rowOf(epochDay);
+
+      for (int s = 0; s < MONTHS; s++) {
+        float first = table.price(s, row);
+        if (Float.isNaN(first)) continue;
+        for (int e = 0; e < MONTHS; e++) {
+          if (s == e) continue;
+          float second;
+          if (s > e) {
+            second = nextRow < 0 ? Float.NaN : nextTable.price(e, nextRow);
+          } else {
+            if (epochDay > expiry[s]) continue;
+            second = table.price(e, row);
+          }
+          if (!Float.isNaN(second)) {
+            grid[s * MONTHS + e][day] = first - second;
+          }
+        }
+      }
+    }
+    return grid;
+  }
+
+  /**
+   * @return the last day of the season (which starts Dec 1) that has a value, or -1
+   */
+  private static int lastDay(float[] series) {
+    for (int i = SeasonalDay.DAYS - 1; i >= 0; i--) {
+      int day = (SpreadCalculator.SEASON_START + i) % SeasonalDay.DAYS;
+      if (!Float.isNaN(series[day])) {
+        return day;
+      }
+    }
+    return -1;
+  }
+
+  private static void putIfNumber(Map<String, Object> cell, String name, double value) {
+    if (!Double.isNaN(value)) {
+      cell.put(name, value);
+    }
+  }
+}
@@ -0,0 +1,162 @@
+package Utilities;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+
+/**
+ * Binary copy of a data/spreads CSV file that {@link PriceTable} reads through a memory map. The
+ * CSV files stay the source of truth; a snapshot records the size and modification time of the CSV
+ * it was built from and is ignored once the CSV no longer matches.
+ *
+ * <p>Layout, little-endian: a 32 byte header (magic "SPRD", format version, row count, month count,
+ * CSV length, CSV modification time in millis), then one 56 byte row per trading day in date order:
+ * epoch day, {@link SeasonalDay} index, and the twelve contract month prices F..Z with NaN where
+ * the CSV has no value.
+ */
+final class SpreadSnapshot {
+  static final int ROW_BYTES = 8 + 4 * 12;
+
+  private static final int MAGIC = 0x53505244;
+  private static final int FORMAT = 1;
+  private static final int MONTHS = 12;
+  private static final int HEADER_BYTES = 32;
+  private static final int ROWS_OFFSET = 8;
+  private static final int STAMP_OFFSET = 16;
+  private static final Path DIR = Paths.get("data/spreads/snapshot");
+
+  private SpreadSnapshot() {}
+
+  /**
+   * @return the snapshot of the CSV file, or null if there is none or it was built from an older
+   *     version of the file
+   */
+  static PriceTable open(String name, Path csv) throws IOException {
+    Path path = DIR.resolve(name + ".bin");
+    if (!Files.exists(path) || Files.size(path) < HEADER_BYTES) {
+      return null;
+    }
+    ByteBuffer file = map(path);
+    if (file.getInt(0) != MAGIC || file.getInt(4) != FORMAT || file.getInt(12) != MONTHS
+        || file.getLong(STAMP_OFFSET) != Files.size(csv)
+        || file.getLong(STAMP_OFFSET + 8) != Files.getLastModifiedTime(csv).toMillis()) {
+      return null;
+    }
+    int rows = file.getInt(ROWS_OFFSET);
+    if (file.capacity() < HEADER_BYTES + (long) rows * ROW_BYTES) {
+      return null;
+    }
+    return table(file, rows);
+  }
+
+  /**
+   * Writes a new snapshot of the CSV file next to the old one and renames it into place, then maps
+   * it. Tables still reading the old snapshot keep their mapping.
+   *
+   * @param prices prices indexed by [contract month][row], rows in ascending date order
+   */
+  static PriceTable write(String name, Path csv, int[] epochDays, float[][] prices, int rows) throws IOException {
+    ByteBuffer buffer = encode(epochDays, prices, rows);
+    buffer.putLong(STAMP_OFFSET, Files.size(csv));
+    buffer.putLong(STAMP_OFFSET + 8, Files.getLastModifiedTime(csv).toMillis());
+
+    Files.createDirectories(DIR);
+    Path path = DIR.resolve(name + ".bin");
+    Path temp = DIR.resolve(name + ".bin.tmp");
+    try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      channel.force(false);
+    }
+    Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    return table(map(path), rows);
+  }
+
+  /**
+   * A snapshot-layout table held on the heap, for when the snapshot directory cannot be written.
+   */
+  static PriceTable inMemory(int[] epochDays, float[][] prices, int rows) {
+    return table(encode(epochDays, prices, rows), rows);
+  }
+
+  /**
+   * Adds one row after the last row of the snapshot that table was opened from, stamps the snapshot
+   * with the CSV file's new size and time, and maps the longer file. Tables already handed out only
+   * ever read their own rows, so they are unaffected.
+   *
+   * @param prices the row's prices by contract month, NaN where the CSV row is blank
+   * @return the table with the row added, or null if the snapshot is not the one table was read
+   *     from or the date is not after its last row, in which case the caller should rebuild
+   */
+  static PriceTable append(String name, Path csv, PriceTable table, LocalDate date, float[] prices)
+      throws IOException {
+    Path path = DIR.resolve(name + ".bin");
+    if (!Files.exists(path)) {
+      return null;
+    }
+    int epochDay = (int) date.toEpochDay();
+    if (table.size() > 0 && table.epochDay(table.size() - 1) >= epochDay) {
+      return null;
+    }
+
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+      channel.read(header, 0);
+      int rows = header.getInt(ROWS_OFFSET);
+      if (header.getInt(0) != MAGIC || rows != table.size()) {
+        return null;
+      }
+
+      ByteBuffer row = ByteBuffer.allocate(ROW_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+      row.putInt(epochDay).putInt(SeasonalDay.of(date));
+      for (int m = 0; m < MONTHS; m++) {
+        row.putFloat(m < prices.length ? prices[m] : Float.NaN);
+      }
+      row.flip();
+      channel.write(row, HEADER_BYTES + (long) rows * ROW_BYTES);
+      channel.force(false);
+
+      // The header goes last, so a crash part way leaves a snapshot that is simply rebuilt
+      header.putInt(ROWS_OFFSET, rows + 1);
+      header.putLong(STAMP_OFFSET, Files.size(csv));
+      header.putLong(STAMP_OFFSET + 8, Files.getLastModifiedTime(csv).toMillis());
+      header.rewind();
+      channel.write(header, 0);
+      channel.force(false);
+    }
+    return table(map(path), table.size() + 1);
+  }
+
+  private static ByteBuffer encode(int[] epochDays, float[][] prices, int rows) {
+    ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + rows * ROW_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    buffer.putInt(MAGIC).putInt(FORMAT).putInt(rows).putInt(MONTHS).putLong(0).putLong(0);
+    for (int r = 0; r < rows; r++) {
+      buffer.putInt(epochDays[r]).putInt(SeasonalDay.of(LocalDate.ofEpochDay(epochDays[r])));
+      for (int m = 0; m < MONTHS; m++) {
+        buffer.putFloat(prices[m][r]);
+      }
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  private static ByteBuffer map(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+    }
+  }
+
+  private static PriceTable table(ByteBuffer file, int rows) {
+    ByteBuffer body = file.duplicate().position(HEADER_BYTES).slice().order(ByteOrder.LITTLE_ENDIAN);
+    return new PriceTable(body, rows);
+  }
+}
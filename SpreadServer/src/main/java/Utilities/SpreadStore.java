@@ -0,0 +1,244 @@
+package Utilities;
+
+import Utilities.Parser.CsvTokenizer;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps every data/spreads/{commodity}{year}.csv file resident as a {@link PriceTable}. Tables are
+ * memory-mapped {@link SpreadSnapshot} files; a CSV is only parsed when its snapshot is missing or
+ * older than the CSV, and the snapshot is rewritten from it. When the forward curve updater writes a
+ * row it calls {@link #rowWritten}, which appends the row to the snapshot if it is the newest date
+ * and rebuilds the snapshot otherwise, then swaps the table in one step so readers never see a
+ * half-updated table.
+ */
+public class SpreadStore {
+  public static final String MONTH_CODES = "FGHJKMNQUVXZ";
+  private static final String SPREADS_DIR = "data/spreads/";
+
+  private static final Map<String, PriceTable> TABLES = new ConcurrentHashMap<>();
+  private static final Map<String, Long> VERSIONS = new ConcurrentHashMap<>();
+
+  public static PriceTable getTable(String commodity, int year) throws IOException {
+    String key = commodity + year;
+    PriceTable table = TABLES.get(key);
+    if (table != null) {
+      return table;
+    }
+    table = load(commodity, year);
+    PriceTable existing = TABLES.putIfAbsent(key, table);
+    return existing != null ? existing : table;
+  }
+
+  /**
+   * Re-reads a file after it has been written and replaces the resident table. The file's version
+   * is bumped only once the new table is visible.
+   */
+  public static void reload(String commodity, int year) throws IOException {
+    String key = commodity + year;
+    TABLES.put(key, load(commodity, year));
+    VERSIONS.merge(key, 1L, Long::sum);
+    System.out.println("Reloaded spread table " + key);
+  }
+
+  /**
+   * Brings the table up to date after the CSV has had one row written. A row dated after every
+   * other row is appended to the snapshot in place; anything else rebuilds it from the CSV.
+   *
+   * @param prices the row by contract month (see {@link #monthIndex}), NaN where it is blank
+   */
+  public static void rowWritten(String commodity, int year, LocalDate date, float[] prices) throws IOException {
+    String key = commodity + year;
+    PriceTable table = TABLES.get(key);
+    PriceTable appended = table == null
+        ? null
+        : SpreadSnapshot.append(key, csvPath(commodity, year), table, date, prices);
+    if (appended == null) {
+      reload(commodity, year);
+      return;
+    }
+    TABLES.put(key, appended);
+    VERSIONS.merge(key, 1L, Long::sum);
+    System.out.println("Appended " + date + " to spread table " + key);
+  }
+
+  /**
+   * Opens every RBOB and HO table up front, so the first requests after a restart do not wait for
+   * CSV parsing. Runs in the background.
+   */
+  public static void warmUp() {
+    Thread thread = new Thread(() -> {
+      long start = System.currentTimeMillis();
+      File[] files = new File(SPREADS_DIR).listFiles((dir, name) -> name.matches("(RBOB|HO)\\d{4}\\.csv"));
+      if (files == null) return;
+      for (File file : files) {
+        String name = file.getName();
+        String commodity = name.startsWith("RBOB") ? "RBOB" : "HO";
+        try {
+          getTable(commodity, Integer.parseInt(name.substring(commodity.length(), name.length() - 4)));
+        } catch (Exception e) {
+          System.err.println("Could not open " + name + ": " + e.getMessage());
+        }
+      }
+      System.out.println("Opened " + files.length + " spread tables in " + (System.currentTimeMillis() - start) + " ms");
+    }, "spread-warmup");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * @return how many times the file has been reloaded since startup
+   */
+  public static long version(String commodity, int year) {
+    return VERSIONS.getOrDefault(commodity + year, 0L);
+  }
+
+  /**
+   * @param monthCode contract month code, F through Z
+   * @return the column index of that month in a {@link PriceTable}
+   */
+  public static int monthIndex(String monthCode) {
+    int index = monthCode.length() == 1 ? MONTH_CODES.indexOf(monthCode.charAt(0)) : -1;
+    if (index < 0) {
+      throw new IllegalArgumentException("Invalid month code: " + monthCode);
+    }
+    return index;
+  }
+
+  private static Path csvPath(String commodity, int year) {
+    return Paths.get(SPREADS_DIR + commodity + year + ".csv");
+  }
+
+  private static PriceTable load(String commodity, int year) throws IOException {
+    String csvFilename = SPREADS_DIR + commodity + year + ".csv";
+    Path csvPath = csvPath(commodity, year);
+    PriceTable snapshot = SpreadSnapshot.open(commodity + year, csvPath);
+    if (snapshot != null) {
+      return snapshot;
+    }
+    int[] epochDays = new int[512];
+    float[][] prices = new float[MONTH_CODES.length()][512];
+    int rows = 0;
+
+    try (CsvTokenizer csv = new CsvTokenizer(new FileReader(csvFilename))) {
+      if (!csv.nextRow()) {
+        throw new IOException("File is empty: " + csvFilename);
+      }
+
+      // Map each header column onto its contract month, ignoring anything that is not F..Z
+      int[] columnMonth = new int[csv.fieldCount()];
+      Arrays.fill(columnMonth, -1);
+      for (int i = 1; i < csv.fieldCount(); i++) {
+        String column = csv.getString(i).trim();
+        if (column.length() == 1) {
+          columnMonth[i] = MONTH_CODES.indexOf(column.charAt(0));
+        }
+      }
+
+      while (csv.nextRow()) {
+        if (csv.isEmpty(0) || "Date".contentEquals(csv.field(0))) continue;
+
+        if (rows == epochDays.length) {
+          epochDays = Arrays.copyOf(epochDays, rows * 2);
+          for (int m = 0; m < prices.length; m++) {
+            prices[m] = Arrays.copyOf(prices[m], rows * 2);
+          }
+        }
+
+        try {
+          epochDays[rows] = parseEpochDay(csv.field(0));
+        } catch (Exception e) {
+          System.err.println("Error processing row: " + csv.toList());
+          continue;
+        }
+
+        for (int m = 0; m < prices.length; m++) {
+          prices[m][rows] = Float.NaN;
+        }
+        for (int i = 1; i < csv.fieldCount() && i < columnMonth.length; i++) {
+          if (columnMonth[i] < 0 || csv.isEmpty(i)) continue;
+          try {
+            prices[columnMonth[i]][rows] = csv.getFloat(i);
+          } catch (NumberFormatException e) {
+            System.err.println("Skipping invalid price in " + csvFilename + ": " + csv.getString(i));
+          }
+        }
+        rows++;
+      }
+    }
+
+    return sortedTable(commodity + year, csvPath, epochDays, prices, rows);
+  }
+
+  /**
+   * Reads an M/d/yyyy date without going through a String or formatter.
+   */
+  private static int parseEpochDay(CharSequence date) {
+    int[] parts = new int[3];
+    int part = 0;
+    for (int i = 0; i < date.length(); i++) {
+      char c = date.charAt(i);
+      if (c == '/' && part < 2) {
+        part++;
+      } else if (c >= '0' && c <= '9') {
+        parts[part] = parts[part] * 10 + (c - '0');
+      } else {
+        throw new IllegalArgumentException("Invalid date: " + date);
+      }
+    }
+    if (part != 2) {
+      throw new IllegalArgumentException("Invalid date: " + date);
+    }
+    return (int) LocalDate.of(parts[2], parts[0], parts[1]).toEpochDay();
+  }
+
+  /**
+   * Writes the parsed rows out as the file's snapshot. The updater keeps files in date order, but
+   * if a file was edited by hand the rows are put back in order and a repeated date keeps its last
+   * row, so lookups can binary search.
+   */
+  private static PriceTable sortedTable(String name, Path csv, int[] epochDays, float[][] prices, int rows)
+      throws IOException {
+    boolean ordered = true;
+    for (int r = 1; r < rows && ordered; r++) {
+      ordered = epochDays[r - 1] < epochDays[r];
+    }
+
+    if (ordered) {
+      return snapshot(name, csv, epochDays, prices, rows);
+    }
+
+    TreeMap<Integer, Integer> rowByDay = new TreeMap<>();
+    for (int r = 0; r < rows; r++) {
+      rowByDay.put(epochDays[r], r);
+    }
+    int[] sortedDays = new int[rowByDay.size()];
+    float[][] sortedPrices = new float[prices.length][rowByDay.size()];
+    int index = 0;
+    for (Map.Entry<Integer, Integer> entry : rowByDay.entrySet()) {
+      sortedDays[index] = entry.getKey();
+      for (int m = 0; m < prices.length; m++) {
+        sortedPrices[m][index] = prices[m][entry.getValue()];
+      }
+      index++;
+    }
+    return snapshot(name, csv, sortedDays, sortedPrices, sortedDays.length);
+  }
+
+  private static PriceTable snapshot(String name, Path csv, int[] epochDays, float[][] prices, int rows) {
+    try {
+      return SpreadSnapshot.write(name, csv, epochDays, prices, rows);
+    } catch (IOException e) {
+      System.err.println("Could not write spread snapshot " + name + ", keeping it in memory: " + e.getMessage());
+      return SpreadSnapshot.inMemory(epochDays, prices, rows);
+    }
+  }
+}